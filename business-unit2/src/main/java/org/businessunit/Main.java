@@ -1,18 +1,52 @@
 package org.businessunit;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import org.businessunit.control.BrokerSubscriber;
 import org.businessunit.control.BusinessUnitApplication;
+import org.businessunit.control.DataMartManager;
+import org.businessunit.control.HotCache;
+import org.businessunit.control.PvEstimator;
+import org.businessunit.control.WindowedAggregator;
 
 public class Main {
     public static void main(String[] args) {
         System.out.println("Iniciando sistema de generación de datamarts...");
+        HotCache hotCache = new HotCache();
+        WindowedAggregator aggregator = new WindowedAggregator();
+        PvEstimator pvEstimator = new PvEstimator(args.length > 0 ? loadInstallationsFile(args[0]) : List.of());
+        DataMartManager dataMartManager = new DataMartManager(hotCache, aggregator, pvEstimator);
 
         try {
-            new BrokerSubscriber().startListening();
+            new BrokerSubscriber(dataMartManager).startListening();
         } catch (Exception e) {
             System.err.println("Error en el broker: " + e.getMessage());
         }
 
-        BusinessUnitApplication.start();
+        BusinessUnitApplication.start(dataMartManager, hotCache, aggregator);
     }
-}
\ No newline at end of file
+
+    private static List<PvEstimator.Installation> loadInstallationsFile(String fileName) {
+        List<PvEstimator.Installation> installations = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(Path.of(fileName))) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+                String[] fields = trimmed.split(",");
+                installations.add(new PvEstimator.Installation(fields[0].trim(), fields[1].trim(),
+                        Double.parseDouble(fields[2].trim()),
+                        Double.parseDouble(fields[3].trim()),
+                        Double.parseDouble(fields[4].trim())));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Fichero de instalaciones no válido " + fileName + ": " + e.getMessage());
+            System.exit(1);
+        }
+        System.out.println("Instalaciones fotovoltaicas cargadas: " + installations.size());
+        return installations;
+    }
+}
@@ -2,12 +2,17 @@ package org.businessunit.control;
 
 import org.apache.activemq.ActiveMQConnectionFactory;
 import javax.jms.*;
+import org.json.JSONObject;
 
 public class BrokerSubscriber {
     private static final String BROKER_URL = "tcp://localhost:61616";
-    private static final String ENERGY_TOPIC = "energy-prices";
-    private static final String WEATHER_TOPIC = "weather-data";
-    private final DataMartManager dataMartManager = new DataMartManager();
+    private static final String ENERGY_TOPIC = "prediction.Energy";
+    private static final String WEATHER_TOPIC = "prediction.Weather";
+    private final DataMartManager dataMartManager;
+
+    public BrokerSubscriber(DataMartManager dataMartManager) {
+        this.dataMartManager = dataMartManager;
+    }
 
     public void startListening() throws JMSException {
         ConnectionFactory factory = new ActiveMQConnectionFactory(BROKER_URL);
@@ -25,16 +30,26 @@ public class BrokerSubscriber {
 
     private void handleMessage(Message message, String type) {
         try {
+            String content;
             if (message instanceof TextMessage) {
-                String content = ((TextMessage) message).getText();
-                System.out.printf("[%s] Nuevos datos: %s%n", type, content);
+                content = ((TextMessage) message).getText();
                 dataMartManager.saveToDataMart(content);
+            } else if (message instanceof BytesMessage bytesMessage
+                    && EventCodec.BINARY_CONTENT_TYPE.equals(message.getStringProperty(EventCodec.CONTENT_TYPE_PROPERTY))) {
+                byte[] data = new byte[(int) bytesMessage.getBodyLength()];
+                bytesMessage.readBytes(data);
+                JSONObject event = EventCodec.decode(data);
+                content = event.toString();
+                dataMartManager.saveToDataMart(event);
+            } else {
+                return;
+            }
+            System.out.printf("[%s] Nuevos datos: %s%n", type, content);
 
-                if (content.contains("complete_dataset")) {
-                    dataMartManager.generateConsolidatedFiles();
-                }
+            if (content.contains("complete_dataset")) {
+                dataMartManager.generateConsolidatedFiles();
             }
-        } catch (JMSException e) {
+        } catch (JMSException | RuntimeException e) {
             System.err.println("Error procesando mensaje: " + e.getMessage());
         }
     }
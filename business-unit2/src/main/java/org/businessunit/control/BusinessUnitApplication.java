@@ -1,23 +1,115 @@
 package org.businessunit.control;
 
 import io.javalin.Javalin;
+import io.javalin.http.Context;
 import java.awt.Desktop;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import org.json.JSONArray;
 
 public class BusinessUnitApplication {
     private static final String POWER_BI_URL = "https://app.powerbi.com/view?r=eyJrIjoiYmEyYmE1NjItM2JhOS00NDM4LTgzM2UtZGM5YjJhMWY1NDkzIiwidCI6ImIyYmI3MzFjLTQ2MGQtNDIwZi1hNDc1LTNlZDYxNWE4Mjk4NyIsImMiOjh9";
 
-    public static void start() {
-        EventStoreReader eventStoreReader = new EventStoreReader();
-        eventStoreReader.loadHistoricalEvents("energy");
-        eventStoreReader.loadHistoricalEvents("weather");
+    private static final ZoneId SPAIN_ZONE_ID = ZoneId.of("Europe/Madrid");
+
+    public static void start(DataMartManager dataMartManager, HotCache hotCache, WindowedAggregator aggregator) {
+        DataMartHistory history = new DataMartHistory(dataMartManager.getColumnarFolder());
+        EventStoreReader eventStoreReader = new EventStoreReader(dataMartManager);
+        eventStoreReader.loadHistoricalEvents();
+        dataMartManager.start();
 
         openPowerBIReport();
 
         Javalin app = Javalin.create().start(7000);
         app.get("/status", ctx -> ctx.result("Sistema operativo"));
+        app.get("/energy", ctx -> {
+            Instant[] range = parseRange(ctx);
+            if (range != null) {
+                respondJson(ctx, hotCache.energyBetween(range[0], range[1]));
+            }
+        });
+        app.get("/weather/{location}", ctx -> {
+            Instant[] range = parseRange(ctx);
+            if (range == null) return;
+
+            JSONArray rows = hotCache.weatherBetween(ctx.pathParam("location").replaceAll("\\s+", "_"), range[0], range[1]);
+            if (rows == null) {
+                ctx.status(404).result("Ubicación sin datos en caché: " + ctx.pathParam("location"));
+            } else {
+                respondJson(ctx, rows);
+            }
+        });
+        app.get("/history/energy", ctx -> {
+            Instant[] range = parseRange(ctx);
+            if (range == null) return;
+
+            try {
+                respondJson(ctx, history.energyBetween(range[0], range[1]));
+            } catch (IOException e) {
+                ctx.status(500).result("Error al leer el histórico columnar: " + e.getMessage());
+            }
+        });
+        app.get("/history/weather/{location}", ctx -> {
+            Instant[] range = parseRange(ctx);
+            if (range == null) return;
+
+            try {
+                respondJson(ctx, history.weatherBetween(ctx.pathParam("location").replaceAll("\\s+", "_"), range[0], range[1]));
+            } catch (IOException e) {
+                ctx.status(500).result("Error al leer el histórico columnar: " + e.getMessage());
+            }
+        });
+        app.get("/aggregates/{location}", ctx -> {
+            WindowedAggregator.Window window = parseWindow(ctx);
+            Instant[] range = window != null ? parseRange(ctx) : null;
+            if (range == null) return;
+
+            JSONArray rows = aggregator.query(ctx.pathParam("location").replaceAll("\\s+", "_"), window, range[0], range[1]);
+            if (rows == null) {
+                ctx.status(404).result("Ubicación sin agregados: " + ctx.pathParam("location"));
+            } else {
+                respondJson(ctx, rows);
+            }
+        });
+    }
+
+    private static WindowedAggregator.Window parseWindow(Context ctx) {
+        String value = ctx.queryParam("window");
+        try {
+            return value == null || value.isBlank()
+                    ? WindowedAggregator.Window.DAILY
+                    : WindowedAggregator.Window.valueOf(value.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            ctx.status(400).result("Ventana no válida: " + value + " (hourly, daily o weekly)");
+            return null;
+        }
+    }
+
+    private static Instant[] parseRange(Context ctx) {
+        try {
+            return new Instant[]{
+                    parseInstant(ctx.queryParam("from"), Instant.EPOCH),
+                    parseInstant(ctx.queryParam("to"), Instant.MAX)
+            };
+        } catch (DateTimeParseException e) {
+            ctx.status(400).result("Parámetro de fecha no válido: " + e.getParsedString());
+            return null;
+        }
+    }
+
+    private static Instant parseInstant(String value, Instant defaultValue) {
+        if (value == null || value.isBlank()) return defaultValue;
+        if (value.length() == 10) return LocalDate.parse(value).atStartOfDay(SPAIN_ZONE_ID).toInstant();
+        return Instant.parse(value);
+    }
+
+    private static void respondJson(Context ctx, JSONArray rows) {
+        ctx.contentType("application/json").result(rows.toString());
     }
 
     private static void openPowerBIReport() {
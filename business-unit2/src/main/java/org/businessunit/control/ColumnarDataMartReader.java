@@ -0,0 +1,137 @@
+package org.businessunit.control;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.businessunit.control.ColumnarDataMartWriter.*;
+
+public class ColumnarDataMartReader {
+
+    // min and max are null when the column holds no values (all NaN or all missing)
+    public record ColumnStatistics(byte type, Object min, Object max) {
+        public boolean hasRange() {
+            return min != null;
+        }
+    }
+
+    public record Partition(int rowCount, Map<String, ColumnStatistics> statistics, Map<String, Object> columns) {
+        public long[] timestamps(String column) {
+            return (long[]) columns.get(column);
+        }
+
+        public double[] doubles(String column) {
+            return (double[]) columns.get(column);
+        }
+
+        public String[] strings(String column) {
+            return (String[]) columns.get(column);
+        }
+    }
+
+    public static List<Partition> readRange(Path datasetFolder, LocalDate from, LocalDate to,
+                                            Set<String> wantedColumns) throws IOException {
+        if (!Files.isDirectory(datasetFolder)) return List.of();
+
+        List<Path> partFiles = new ArrayList<>();
+        try (Stream<Path> partitions = Files.list(datasetFolder)) {
+            for (Path partition : partitions.sorted().toList()) {
+                String name = partition.getFileName().toString();
+                if (!name.startsWith(PARTITION_PREFIX)) continue;
+
+                LocalDate date = LocalDate.parse(name.substring(PARTITION_PREFIX.length()));
+                if (date.isBefore(from) || date.isAfter(to)) continue;
+
+                try (Stream<Path> parts = Files.list(partition)) {
+                    parts.filter(path -> path.getFileName().toString().endsWith(PART_EXTENSION))
+                            .sorted()
+                            .forEach(partFiles::add);
+                }
+            }
+        }
+
+        List<Partition> result = new ArrayList<>(partFiles.size());
+        for (Path partFile : partFiles) {
+            result.add(read(partFile, wantedColumns));
+        }
+        return result;
+    }
+
+    public static Partition read(Path partFile, Set<String> wantedColumns) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(partFile)))) {
+            byte[] magic = new byte[MAGIC.length()];
+            in.readFully(magic);
+            if (!MAGIC.equals(new String(magic, StandardCharsets.US_ASCII))) {
+                throw new IOException("Fichero columnar no válido: " + partFile);
+            }
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION && version != 1) {
+                throw new IOException("Versión de formato columnar no soportada: " + version);
+            }
+
+            int rowCount = in.readInt();
+            int columnCount = in.readShort();
+            Map<String, ColumnStatistics> statistics = new LinkedHashMap<>();
+            Map<String, Object> columns = new LinkedHashMap<>();
+
+            for (int c = 0; c < columnCount; c++) {
+                String name = in.readUTF();
+                byte type = in.readByte();
+                statistics.put(name, readStatistics(in, type, version));
+
+                int dataLength = in.readInt();
+                if (wantedColumns.contains(name)) {
+                    columns.put(name, readData(in, type, rowCount));
+                } else {
+                    in.skipNBytes(dataLength);
+                }
+            }
+            return new Partition(rowCount, statistics, columns);
+        }
+    }
+
+    private static ColumnStatistics readStatistics(DataInputStream in, byte type, byte version) throws IOException {
+        // Version 1 always wrote a range, with 0 or "" standing in for an empty column
+        if (version > 1 && !in.readBoolean()) {
+            return new ColumnStatistics(type, null, null);
+        }
+        return switch (type) {
+            case TYPE_TIMESTAMP -> new ColumnStatistics(type, in.readLong(), in.readLong());
+            case TYPE_DOUBLE -> new ColumnStatistics(type, in.readDouble(), in.readDouble());
+            case TYPE_DICTIONARY -> new ColumnStatistics(type, in.readUTF(), in.readUTF());
+            default -> throw new IOException("Tipo de columna desconocido: " + type);
+        };
+    }
+
+    private static Object readData(DataInputStream in, byte type, int rowCount) throws IOException {
+        switch (type) {
+            case TYPE_TIMESTAMP -> {
+                long[] values = new long[rowCount];
+                for (int i = 0; i < rowCount; i++) values[i] = in.readLong();
+                return values;
+            }
+            case TYPE_DOUBLE -> {
+                double[] values = new double[rowCount];
+                for (int i = 0; i < rowCount; i++) values[i] = in.readDouble();
+                return values;
+            }
+            case TYPE_DICTIONARY -> {
+                String[] dictionary = new String[in.readInt()];
+                for (int i = 0; i < dictionary.length; i++) dictionary[i] = in.readUTF();
+
+                int codeWidth = in.readByte();
+                String[] values = new String[rowCount];
+                for (int i = 0; i < rowCount; i++) {
+                    int code = codeWidth == 1 ? in.readUnsignedByte() : codeWidth == 2 ? in.readUnsignedShort() : in.readInt();
+                    values[i] = dictionary[code];
+                }
+                return values;
+            }
+            default -> throw new IOException("Tipo de columna desconocido: " + type);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.businessunit.control;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+public class ColumnarDataMartWriter {
+    static final String MAGIC = "PVCOL";
+    static final byte FORMAT_VERSION = 2;
+    static final byte TYPE_TIMESTAMP = 0;
+    static final byte TYPE_DOUBLE = 1;
+    static final byte TYPE_DICTIONARY = 2;
+    static final String PART_EXTENSION = ".pvc";
+    static final String PARTITION_PREFIX = "date=";
+
+    private final Path baseFolder;
+
+    public ColumnarDataMartWriter(Path baseFolder) {
+        this.baseFolder = baseFolder;
+    }
+
+    public void writeEnergyPartition(LocalDate date, long[] timestamps, double[] pvpc, double[] spot) throws IOException {
+        writePartition("energy", date, timestamps.length, List.of(
+                new TimestampColumn("priceTimestamp", timestamps),
+                new DoubleColumn("pricePVPC", pvpc),
+                new DoubleColumn("priceSpot", spot)));
+    }
+
+    public void writeWeatherPartition(LocalDate date, long[] timestamps, String[] locations,
+                                      double[] temperature, double[] humidity, double[] cloudiness,
+                                      String[] descriptions, String[] partsOfDay) throws IOException {
+        writePartition("weather", date, timestamps.length, List.of(
+                new TimestampColumn("predictionTimestamp", timestamps),
+                new DictionaryColumn("location", locations),
+                new DoubleColumn("temperature", temperature),
+                new DoubleColumn("humidity", humidity),
+                new DoubleColumn("cloudiness", cloudiness),
+                new DictionaryColumn("weatherDescription", descriptions),
+                new DictionaryColumn("partOfDay", partsOfDay)));
+    }
+
+    private void writePartition(String dataset, LocalDate date, int rowCount, List<Column> columns) throws IOException {
+        if (rowCount == 0) return;
+
+        Path partitionDir = baseFolder.resolve(dataset).resolve(PARTITION_PREFIX + date);
+        Files.createDirectories(partitionDir);
+        Path partFile = partitionDir.resolve(String.format("part-%05d%s", countParts(partitionDir) + 1, PART_EXTENSION));
+        Path tempFile = partitionDir.resolve(partFile.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeBytes(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+            out.writeInt(rowCount);
+            out.writeShort(columns.size());
+            for (Column column : columns) {
+                writeColumn(out, column);
+            }
+        }
+        Files.move(tempFile, partFile, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private long countParts(Path partitionDir) throws IOException {
+        try (Stream<Path> parts = Files.list(partitionDir)) {
+            return parts.filter(path -> path.getFileName().toString().endsWith(PART_EXTENSION)).count();
+        }
+    }
+
+    private void writeColumn(DataOutputStream out, Column column) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(buffer);
+        column.writeData(data);
+        data.flush();
+
+        out.writeUTF(column.name());
+        out.writeByte(column.type());
+        column.writeStatistics(out);
+        out.writeInt(buffer.size());
+        buffer.writeTo(out);
+    }
+
+    private interface Column {
+        String name();
+        byte type();
+        void writeStatistics(DataOutputStream out) throws IOException;
+        void writeData(DataOutputStream out) throws IOException;
+    }
+
+    private record TimestampColumn(String name, long[] values) implements Column {
+        public byte type() {
+            return TYPE_TIMESTAMP;
+        }
+
+        public void writeStatistics(DataOutputStream out) throws IOException {
+            out.writeBoolean(values.length > 0);
+            if (values.length == 0) return;
+            out.writeLong(Arrays.stream(values).min().getAsLong());
+            out.writeLong(Arrays.stream(values).max().getAsLong());
+        }
+
+        public void writeData(DataOutputStream out) throws IOException {
+            for (long value : values) out.writeLong(value);
+        }
+    }
+
+    private record DoubleColumn(String name, double[] values) implements Column {
+        public byte type() {
+            return TYPE_DOUBLE;
+        }
+
+        public void writeStatistics(DataOutputStream out) throws IOException {
+            OptionalDouble min = Arrays.stream(values).filter(value -> !Double.isNaN(value)).min();
+            out.writeBoolean(min.isPresent());
+            if (min.isEmpty()) return;
+            out.writeDouble(min.getAsDouble());
+            out.writeDouble(Arrays.stream(values).filter(value -> !Double.isNaN(value)).max().getAsDouble());
+        }
+
+        public void writeData(DataOutputStream out) throws IOException {
+            for (double value : values) out.writeDouble(value);
+        }
+    }
+
+    private record DictionaryColumn(String name, String[] values) implements Column {
+        public byte type() {
+            return TYPE_DICTIONARY;
+        }
+
+        public void writeStatistics(DataOutputStream out) throws IOException {
+            Optional<String> min = Arrays.stream(values).filter(Objects::nonNull).min(Comparator.naturalOrder());
+            out.writeBoolean(min.isPresent());
+            if (min.isEmpty()) return;
+            out.writeUTF(min.get());
+            out.writeUTF(Arrays.stream(values).filter(Objects::nonNull).max(Comparator.naturalOrder()).get());
+        }
+
+        public void writeData(DataOutputStream out) throws IOException {
+            Map<String, Integer> dictionary = new LinkedHashMap<>();
+            int[] codes = new int[values.length];
+            for (int i = 0; i < values.length; i++) {
+                codes[i] = dictionary.computeIfAbsent(values[i] != null ? values[i] : "", k -> dictionary.size());
+            }
+
+            out.writeInt(dictionary.size());
+            for (String entry : dictionary.keySet()) out.writeUTF(entry);
+
+            int codeWidth = dictionary.size() <= 256 ? 1 : dictionary.size() <= 65536 ? 2 : 4;
+            out.writeByte(codeWidth);
+            for (int code : codes) {
+                if (codeWidth == 1) out.writeByte(code);
+                else if (codeWidth == 2) out.writeShort(code);
+                else out.writeInt(code);
+            }
+        }
+    }
+}
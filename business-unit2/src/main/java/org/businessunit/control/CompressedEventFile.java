@@ -0,0 +1,71 @@
+package org.businessunit.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+public class CompressedEventFile {
+    static final String EXTENSION = ".events.z";
+    private static final int MAGIC = 0x45565A31;
+    private static final int TRAILER_BYTES = 20;
+
+    private final File file;
+    private final MappedByteBuffer data;
+    private final List<Block> blocks;
+
+    private CompressedEventFile(File file, MappedByteBuffer data, List<Block> blocks) {
+        this.file = file;
+        this.data = data;
+        this.blocks = blocks;
+    }
+
+    public static CompressedEventFile open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int trailerPosition = data.limit() - TRAILER_BYTES;
+            if (trailerPosition < 0 || data.getInt(trailerPosition + 16) != MAGIC) {
+                throw new IOException("No es un fichero de eventos comprimido: " + file.getName());
+            }
+            long indexPosition = data.getLong(trailerPosition + 8);
+
+            ByteBuffer index = data.slice((int) indexPosition, trailerPosition - (int) indexPosition);
+            int blockCount = index.getInt();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new Block(index.getLong(), index.getLong(), index.getInt(), index.getInt()));
+            }
+            return new CompressedEventFile(file, data, blocks);
+        }
+    }
+
+    public int blockCount() {
+        return blocks.size();
+    }
+
+    public ByteBuffer decodeBlock(int blockIndex) throws IOException {
+        Block block = blocks.get(blockIndex);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice((int) block.filePosition(), block.compressedLength()));
+            ByteBuffer decoded = ByteBuffer.allocate(block.logicalLength());
+            while (decoded.hasRemaining() && !inflater.finished()) {
+                inflater.inflate(decoded);
+            }
+            return decoded.flip();
+        } catch (DataFormatException e) {
+            throw new IOException("Bloque " + blockIndex + " corrupto en " + file.getName(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private record Block(long logicalOffset, long filePosition, int compressedLength, int logicalLength) {
+    }
+}
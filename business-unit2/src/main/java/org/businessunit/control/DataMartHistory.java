@@ -0,0 +1,87 @@
+package org.businessunit.control;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class DataMartHistory {
+    private static final long SECONDS_PER_DAY = 86400;
+    private static final Set<String> ENERGY_COLUMNS = Set.of("priceTimestamp", "pricePVPC", "priceSpot");
+    private static final Set<String> WEATHER_COLUMNS = Set.of("predictionTimestamp", "location", "temperature",
+            "humidity", "cloudiness", "weatherDescription", "partOfDay");
+
+    private final Path columnarFolder;
+
+    public DataMartHistory(Path columnarFolder) {
+        this.columnarFolder = columnarFolder;
+    }
+
+    public JSONArray energyBetween(Instant from, Instant to) throws IOException {
+        JSONArray rows = new JSONArray();
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+
+        for (ColumnarDataMartReader.Partition partition : ColumnarDataMartReader.readRange(
+                columnarFolder.resolve("energy"), toDate(fromSecond), toDate(toSecond), ENERGY_COLUMNS)) {
+            long[] timestamps = partition.timestamps("priceTimestamp");
+            double[] pvpc = partition.doubles("pricePVPC");
+            double[] spot = partition.doubles("priceSpot");
+
+            for (int row = 0; row < partition.rowCount(); row++) {
+                if (timestamps[row] < fromSecond || timestamps[row] >= toSecond) continue;
+                rows.put(new JSONObject()
+                        .put("priceTimestamp", Instant.ofEpochSecond(timestamps[row]).toString())
+                        .put("pricePVPC", jsonValue(pvpc[row]))
+                        .put("priceSpot", jsonValue(spot[row])));
+            }
+        }
+        return rows;
+    }
+
+    public JSONArray weatherBetween(String location, Instant from, Instant to) throws IOException {
+        JSONArray rows = new JSONArray();
+        long fromSecond = from.getEpochSecond();
+        long toSecond = to.getEpochSecond();
+
+        for (ColumnarDataMartReader.Partition partition : ColumnarDataMartReader.readRange(
+                columnarFolder.resolve("weather"), toDate(fromSecond), toDate(toSecond), WEATHER_COLUMNS)) {
+            ColumnarDataMartReader.ColumnStatistics locations = partition.statistics().get("location");
+            if (!locations.hasRange() || location.compareTo((String) locations.min()) < 0 || location.compareTo((String) locations.max()) > 0) {
+                continue;
+            }
+
+            long[] timestamps = partition.timestamps("predictionTimestamp");
+            String[] names = partition.strings("location");
+            double[] temperature = partition.doubles("temperature");
+            double[] humidity = partition.doubles("humidity");
+            double[] cloudiness = partition.doubles("cloudiness");
+            String[] descriptions = partition.strings("weatherDescription");
+            String[] partsOfDay = partition.strings("partOfDay");
+
+            for (int row = 0; row < partition.rowCount(); row++) {
+                if (!location.equals(names[row]) || timestamps[row] < fromSecond || timestamps[row] >= toSecond) continue;
+                rows.put(new JSONObject()
+                        .put("predictionTimestamp", Instant.ofEpochSecond(timestamps[row]).toString())
+                        .put("temperature", jsonValue(temperature[row]))
+                        .put("humidity", jsonValue(humidity[row]))
+                        .put("cloudiness", jsonValue(cloudiness[row]))
+                        .put("weatherDescription", descriptions[row])
+                        .put("partOfDay", partsOfDay[row]));
+            }
+        }
+        return rows;
+    }
+
+    private LocalDate toDate(long epochSecond) {
+        long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+        return LocalDate.ofEpochDay(Math.max(LocalDate.MIN.toEpochDay(), Math.min(LocalDate.MAX.toEpochDay(), epochDay)));
+    }
+
+    private Object jsonValue(double value) {
+        return Double.isNaN(value) ? JSONObject.NULL : value;
+    }
+}
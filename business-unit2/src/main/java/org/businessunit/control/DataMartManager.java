@@ -2,61 +2,188 @@ package org.businessunit.control;
 
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import org.json.JSONObject;
 
 public class DataMartManager {
     private static final String BASE_FOLDER = "datamart";
+    private static final String ENERGY_FILE = "energy_consolidated.csv";
+    private static final String WEATHER_FILE = "weather_consolidated.csv";
+    private static final String AGGREGATES_FILE = "aggregates.csv";
+    private static final String PV_ESTIMATES_FILE = "pv_estimates.csv";
+    private static final String JOINED_FILE = "joined_consolidated.csv";
+    private static final String JOINED_UPDATES_FILE = "joined_updates.csv";
+    private static final String STATE_FILE = "datamart.state";
+    private static final String COLUMNAR_FOLDER = "columnar";
+    private static final String ENERGY_DATASET = "energy";
+    private static final String WEATHER_DATASET_PREFIX = "weather.";
+    private static final String JOINED_DATASET = "joined";
+    private static final int HOURS_PER_DAY = HourlyTable.HOURS_PER_DAY;
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long REFRESH_INTERVAL_SECONDS = 60;
+    private static final String[] NO_LABELS = {};
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final String ENERGY_HEADER = "priceTimestamp,pricePVPC,priceSpot\n";
     private static final String WEATHER_HEADER = "predictionTimestamp,location,temperature,humidity,cloudiness,weatherDescription,partOfDay\n";
+    private static final String JOINED_HEADER = "hourTimestamp,location,pricePVPC,priceSpot,temperature,humidity,cloudiness,weatherDescription,partOfDay\n";
+    private static final String JOINED_UPDATES_HEADER = "hourTimestamp,location,revision,pricePVPC,priceSpot,temperature,humidity,cloudiness,weatherDescription,partOfDay\n";
 
-    private final Map<LocalDate, Map<String, String>> energyData = new HashMap<>();
-    private final Map<LocalDate, Map<String, Map<String, String>>> weatherData = new HashMap<>();
+    private final HourlyTable energyTable = new HourlyTable(2, 0);
+    private final HourlyTable weatherTable = new HourlyTable(3, 2);
+    private final StringInterner locations = new StringInterner();
+    private final List<String> weatherDatasets = new ArrayList<>();
+    private final DataMartWatermarks watermarks;
+    private final Path baseFolder;
+    private final Path columnarFolder;
+    private final ColumnarDataMartWriter columnarWriter;
+    private final HotCache hotCache;
+    private final WindowedAggregator aggregator;
+    private final PvEstimator pvEstimator;
+    private final EventTimeJoin join = new EventTimeJoin(this::onJoinedRecord);
+    private final List<EventTimeJoin.JoinedRecord> pendingJoinedUpdates = new ArrayList<>();
+    private final ScheduledExecutorService refreshExecutor = createRefreshExecutor();
+    private boolean aggregatesStale;
+    private long pvEstimatesHour = Long.MIN_VALUE;
+    private List<ParsedEvent> heldLiveEvents = new ArrayList<>();
 
-    public void saveToDataMart(String eventData) {
+    public DataMartManager() {
+        this(new HotCache(), new WindowedAggregator(), new PvEstimator(List.of()));
+    }
+
+    public DataMartManager(HotCache hotCache, WindowedAggregator aggregator, PvEstimator pvEstimator) {
+        this(Paths.get(BASE_FOLDER), hotCache, aggregator, pvEstimator);
+    }
+
+    DataMartManager(Path baseFolder, HotCache hotCache, WindowedAggregator aggregator, PvEstimator pvEstimator) {
+        this.baseFolder = baseFolder;
+        this.columnarFolder = baseFolder.resolve(COLUMNAR_FOLDER);
+        this.columnarWriter = new ColumnarDataMartWriter(columnarFolder);
+        this.hotCache = hotCache;
+        this.aggregator = aggregator;
+        this.pvEstimator = pvEstimator;
+        this.watermarks = loadWatermarks();
+    }
+
+    private ScheduledExecutorService createRefreshExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "DataMartRefresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        releaseHeldLiveEvents();
+        refreshExecutor.scheduleWithFixedDelay(this::refreshAnalytics,
+                REFRESH_INTERVAL_SECONDS, REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private synchronized void releaseHeldLiveEvents() {
+        List<ParsedEvent> held = heldLiveEvents;
+        heldLiveEvents = null;
+        if (held.isEmpty()) return;
+
+        System.out.println("Eventos recibidos durante el reproceso: " + held.size());
+        mergeEvents(held);
+        generateConsolidatedFiles();
+    }
+
+    private DataMartWatermarks loadWatermarks() {
         try {
-            JSONObject json = new JSONObject(eventData);
-            System.out.println("Procesando JSON: " + json.toString());
+            DataMartWatermarks loaded = DataMartWatermarks.load(baseFolder.resolve(STATE_FILE));
+            if (!loaded.exists()) {
+                bootstrapWatermarks(loaded);
+            }
+            System.out.println("Datamart de energía actualizado hasta: " + loaded.getWatermark(ENERGY_DATASET));
+            return loaded;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al cargar el estado del datamart", e);
+        }
+    }
 
-            String type = json.has("pricePVPC") ? "energy" : "weather";
+    private void bootstrapWatermarks(DataMartWatermarks loaded) throws IOException {
+        Path energyFile = baseFolder.resolve(ENERGY_FILE);
+        Path weatherFile = baseFolder.resolve(WEATHER_FILE);
 
-            if (type.equals("energy")) {
-                processEnergyEvent(json);
-            } else {
-                processWeatherEvent(json);
+        if (Files.exists(energyFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(energyFile)) {
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] columns = line.split(",", 2);
+                    loaded.markEmitted(ENERGY_DATASET, ZonedDateTime.parse(columns[0]).toLocalDate());
+                }
             }
+        }
+
+        if (Files.exists(weatherFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(weatherFile)) {
+                reader.readLine();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] columns = line.split(",", 3);
+                    loaded.markEmitted(WEATHER_DATASET_PREFIX + columns[1], ZonedDateTime.parse(columns[0]).toLocalDate());
+                }
+            }
+        }
+
+        loaded.save();
+    }
+
+    public Path getColumnarFolder() {
+        return columnarFolder;
+    }
 
+    public record ParsedEvent(String location, long epochHour, double[] measures, String[] labels) {
+        boolean isEnergy() {
+            return location == null;
+        }
+    }
+
+    public void saveToDataMart(String eventData) {
+        try {
+            saveToDataMart(new JSONObject(eventData));
         } catch (Exception e) {
             System.err.println("Error al procesar evento: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    private void processEnergyEvent(JSONObject json) {
-        String timestamp = json.getString("priceTimestamp");
-        ZonedDateTime dateTime = ZonedDateTime.parse(timestamp);
-        LocalDate date = dateTime.toLocalDate();
-        String hour = dateTime.getHour() + ":00";
+    public void saveToDataMart(JSONObject json) {
+        try {
+            System.out.println("Procesando JSON: " + json.toString());
+            mergeEvents(List.of(parseEvent(json)));
+        } catch (Exception e) {
+            System.err.println("Error al procesar evento: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public static ParsedEvent parseEvent(String eventData) {
+        return parseEvent(new JSONObject(eventData));
+    }
 
-        StringBuilder row = new StringBuilder();
-        row.append(timestamp);
-        if (json.has("pricePVPC")) row.append(",").append(json.getDouble("pricePVPC"));
-        if (json.has("priceSpot")) row.append(",").append(json.getDouble("priceSpot"));
+    private static ParsedEvent parseEvent(JSONObject json) {
+        return json.has("pricePVPC") ? parseEnergyEvent(json) : parseWeatherEvent(json);
+    }
 
-        energyData.computeIfAbsent(date, k -> new HashMap<>()).put(hour, row.toString());
+    private static ParsedEvent parseEnergyEvent(JSONObject json) {
+        long epochHour = toEpochHour(json.getString("priceTimestamp"));
+        double[] measures = {json.optDouble("pricePVPC", Double.NaN), json.optDouble("priceSpot", Double.NaN)};
+        return new ParsedEvent(null, epochHour, measures, NO_LABELS);
     }
 
-    private void processWeatherEvent(JSONObject json) {
-        String timestamp = json.getString("predictionTimestamp");
-        ZonedDateTime dateTime = ZonedDateTime.parse(timestamp);
-        LocalDate date = dateTime.toLocalDate();
-        String hour = dateTime.getHour() + ":00";
+    private static ParsedEvent parseWeatherEvent(JSONObject json) {
+        long epochHour = toEpochHour(json.getString("predictionTimestamp"));
 
         String location = "unknown";
         if (json.has("location")) {
@@ -67,133 +194,259 @@ public class DataMartManager {
             }
         }
 
-        StringBuilder row = new StringBuilder();
-        row.append(timestamp).append(",").append(location);
-        if (json.has("temperature")) row.append(",").append(json.getDouble("temperature"));
-        if (json.has("humidity")) row.append(",").append(json.getDouble("humidity"));
-        if (json.has("cloudiness")) row.append(",").append(json.getDouble("cloudiness"));
-        if (json.has("weatherDescription")) row.append(",").append(json.getString("weatherDescription"));
-        if (json.has("partOfDay")) row.append(",").append(json.getString("partOfDay"));
+        double[] measures = {json.optDouble("temperature", Double.NaN), json.optDouble("humidity", Double.NaN),
+                json.optDouble("cloudiness", Double.NaN)};
+        String[] labels = {json.optString("weatherDescription", null), json.optString("partOfDay", null)};
+        return new ParsedEvent(location, epochHour, measures, labels);
+    }
 
-        weatherData.computeIfAbsent(date, k -> new HashMap<>())
-                .computeIfAbsent(location, k -> new HashMap<>())
-                .put(hour, row.toString());
+    private static long toEpochHour(String timestamp) {
+        return Math.floorDiv(Instant.parse(timestamp).getEpochSecond(), SECONDS_PER_HOUR);
     }
 
-    public void generateConsolidatedFiles() {
-        updateEnergyCSV();
-        updateWeatherCSV();
+    public synchronized void mergeEvents(List<ParsedEvent> events) {
+        // Live events are held until start(), once the replay is done; merged earlier they would advance
+        // the join watermark to the present and the whole history would be discarded as late
+        if (heldLiveEvents != null) {
+            heldLiveEvents.addAll(events);
+            return;
+        }
+        mergeIntoTables(events);
+        appendJoinedUpdates();
     }
 
-    private void updateEnergyCSV() {
-        File dir = new File(BASE_FOLDER);
-        if (!dir.exists()) dir.mkdirs();
+    public synchronized void replayEvents(List<ParsedEvent> events) {
+        // Replayed joins were already appended to joined_updates.csv when the events first arrived
+        mergeIntoTables(events);
+        pendingJoinedUpdates.clear();
+    }
+
+    private void mergeIntoTables(List<ParsedEvent> events) {
+        for (ParsedEvent event : events) {
+            hotCache.put(event);
+            aggregator.accept(event);
+            aggregatesStale = true;
+            pvEstimatesHour = Long.MIN_VALUE;
+            join.accept(event);
+            LocalDate date = dateOf(event.epochHour());
+
+            if (event.isEnergy()) {
+                if (watermarks.isEmitted(ENERGY_DATASET, date)) continue;
+                energyTable.put(0, event.epochHour(), event.measures(), event.labels());
+            } else {
+                int locationId = locations.idOf(event.location());
+                if (locationId == weatherDatasets.size()) {
+                    weatherDatasets.add(WEATHER_DATASET_PREFIX + event.location());
+                }
+                if (watermarks.isEmitted(weatherDatasets.get(locationId), date)) continue;
+                weatherTable.put(locationId, event.epochHour(), event.measures(), event.labels());
+            }
+        }
+    }
+
+    private void onJoinedRecord(EventTimeJoin.JoinedRecord record) {
+        pendingJoinedUpdates.add(record);
+    }
 
-        File file = new File(dir, "energy_consolidated.csv");
-        Map<LocalDate, List<String>> newData = new HashMap<>();
-
-        for (LocalDate date : energyData.keySet()) {
-            Map<String, String> hoursData = energyData.get(date);
-            if (hoursData.size() == 24) {
-                List<String> sortedRows = hoursData.entrySet().stream()
-                        .sorted(Map.Entry.comparingByKey())
-                        .map(Map.Entry::getValue)
-                        .collect(Collectors.toList());
-                newData.put(date, sortedRows);
+    private void appendJoinedUpdates() {
+        if (pendingJoinedUpdates.isEmpty()) return;
+
+        try (Writer writer = openDataMartFile(JOINED_UPDATES_FILE, JOINED_UPDATES_HEADER)) {
+            for (EventTimeJoin.JoinedRecord record : pendingJoinedUpdates) {
+                if (watermarks.isEmitted(JOINED_DATASET, dateOf(record.epochHour()))) continue;
+                appendJoinedRow(writer, record, true);
             }
+        } catch (IOException e) {
+            System.err.println("Error al escribir actualizaciones del datamart combinado: " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            pendingJoinedUpdates.clear();
         }
+    }
 
+    public synchronized void generateConsolidatedFiles() {
         try {
-            if (!file.exists()) {
-                try (FileWriter writer = new FileWriter(file)) {
-                    writer.append(ENERGY_HEADER);
-                    newData.values().forEach(rows -> {
-                        try {
-                            for (String row : rows) {
-                                writer.append(row).append("\n");
-                            }
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    });
-                }
-            } else {
-                Set<String> existingLines = new HashSet<>(Files.readAllLines(file.toPath()));
-                existingLines.remove(ENERGY_HEADER.trim());
-
-                try (FileWriter writer = new FileWriter(file, true)) {
-                    for (List<String> rows : newData.values()) {
-                        for (String row : rows) {
-                            if (!existingLines.contains(row)) {
-                                writer.append(row).append("\n");
-                            }
-                        }
-                    }
-                }
+            boolean energyUpdated = updateEnergyCSV();
+            boolean weatherUpdated = updateWeatherCSV();
+            boolean joinedUpdated = updateJoinedCSV();
+            if (energyUpdated || weatherUpdated || joinedUpdated) {
+                watermarks.save();
             }
         } catch (IOException e) {
-            System.err.println("Error al actualizar CSV de energía: " + e.getMessage());
+            System.err.println("Error al actualizar el datamart: " + e.getMessage());
             e.printStackTrace();
         }
+        refreshAnalytics();
     }
 
-    private void updateWeatherCSV() {
-        File dir = new File(BASE_FOLDER);
-        if (!dir.exists()) dir.mkdirs();
+    public synchronized void refreshAnalytics() {
+        if (aggregatesStale) {
+            try {
+                aggregator.writeTable(baseFolder.resolve(AGGREGATES_FILE));
+                aggregatesStale = false;
+            } catch (IOException e) {
+                System.err.println("Error al actualizar los agregados: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
 
-        File file = new File(dir, "weather_consolidated.csv");
-        Map<LocalDate, List<String>> newData = new HashMap<>();
-
-        for (LocalDate date : weatherData.keySet()) {
-            Map<String, Map<String, String>> locationsData = weatherData.get(date);
-            boolean allComplete = locationsData.values().stream()
-                    .allMatch(hours -> hours.size() == 24);
-
-            if (allComplete) {
-                List<String> allRows = new ArrayList<>();
-                for (String location : locationsData.keySet()) {
-                    Map<String, String> hoursData = locationsData.get(location);
-                    List<String> sortedRows = hoursData.entrySet().stream()
-                            .sorted(Map.Entry.comparingByKey())
-                            .map(Map.Entry::getValue)
-                            .collect(Collectors.toList());
-                    allRows.addAll(sortedRows);
-                }
-                newData.put(date, allRows);
+        // The horizon starts at the current hour, so estimates are redone every hour even without new forecasts
+        long currentHour = Math.floorDiv(Instant.now().getEpochSecond(), SECONDS_PER_HOUR);
+        if (currentHour != pvEstimatesHour) {
+            try {
+                pvEstimator.writeTable(hotCache, currentHour, baseFolder.resolve(PV_ESTIMATES_FILE));
+                pvEstimatesHour = currentHour;
+            } catch (IOException e) {
+                System.err.println("Error al actualizar las estimaciones fotovoltaicas: " + e.getMessage());
+                e.printStackTrace();
             }
         }
+    }
 
-        try {
-            if (!file.exists()) {
-                try (FileWriter writer = new FileWriter(file)) {
-                    writer.append(WEATHER_HEADER);
-                    newData.values().forEach(rows -> {
-                        try {
-                            for (String row : rows) {
-                                writer.append(row).append("\n");
-                            }
-                        } catch (IOException e) {
-                            e.printStackTrace();
-                        }
-                    });
+    private boolean updateEnergyCSV() throws IOException {
+        List<HourlyTable.Day> completeDays = energyTable.removeCompleteDays();
+        if (completeDays.isEmpty()) return false;
+        completeDays.sort(Comparator.comparingLong(HourlyTable.Day::epochDay));
+
+        try (Writer writer = openDataMartFile(ENERGY_FILE, ENERGY_HEADER)) {
+            for (HourlyTable.Day day : completeDays) {
+                long[] timestamps = new long[HOURS_PER_DAY];
+                double[] pvpc = new double[HOURS_PER_DAY];
+                double[] spot = new double[HOURS_PER_DAY];
+
+                for (int hour = 0; hour < HOURS_PER_DAY; hour++) {
+                    timestamps[hour] = day.epochSecond(hour);
+                    pvpc[hour] = day.measure(0, hour);
+                    spot[hour] = day.measure(1, hour);
+
+                    writer.append(Instant.ofEpochSecond(timestamps[hour]).toString())
+                            .append(',').append(formatMeasure(pvpc[hour]))
+                            .append(',').append(formatMeasure(spot[hour])).append('\n');
                 }
-            } else {
-                Set<String> existingLines = new HashSet<>(Files.readAllLines(file.toPath()));
-                existingLines.remove(WEATHER_HEADER.trim());
-
-                try (FileWriter writer = new FileWriter(file, true)) {
-                    for (List<String> rows : newData.values()) {
-                        for (String row : rows) {
-                            if (!existingLines.contains(row)) {
-                                writer.append(row).append("\n");
-                            }
-                        }
-                    }
+                columnarWriter.writeEnergyPartition(day.date(), timestamps, pvpc, spot);
+                watermarks.markEmitted(ENERGY_DATASET, day.date());
+            }
+        }
+        System.out.println("Días de energía añadidos al datamart: " + completeDays.size());
+        return true;
+    }
+
+    private boolean updateWeatherCSV() throws IOException {
+        List<HourlyTable.Day> completeDays = weatherTable.removeCompleteDays();
+        if (completeDays.isEmpty()) return false;
+        completeDays.sort(Comparator.comparingLong(HourlyTable.Day::epochDay)
+                .thenComparing(day -> locations.valueOf(day.seriesId())));
+
+        try (Writer writer = openDataMartFile(WEATHER_FILE, WEATHER_HEADER)) {
+            int groupStart = 0;
+            while (groupStart < completeDays.size()) {
+                int groupEnd = groupStart;
+                while (groupEnd < completeDays.size()
+                        && completeDays.get(groupEnd).epochDay() == completeDays.get(groupStart).epochDay()) {
+                    groupEnd++;
                 }
+                appendWeatherDays(writer, completeDays.subList(groupStart, groupEnd));
+                groupStart = groupEnd;
             }
-        } catch (IOException e) {
-            System.err.println("Error al actualizar CSV de clima: " + e.getMessage());
-            e.printStackTrace();
         }
+        System.out.println("Días de clima añadidos al datamart: " + completeDays.size());
+        return true;
+    }
+
+    private void appendWeatherDays(Writer writer, List<HourlyTable.Day> sameDateDays) throws IOException {
+        int rowCount = sameDateDays.size() * HOURS_PER_DAY;
+        long[] timestamps = new long[rowCount];
+        String[] locationNames = new String[rowCount];
+        double[] temperature = new double[rowCount];
+        double[] humidity = new double[rowCount];
+        double[] cloudiness = new double[rowCount];
+        String[] descriptions = new String[rowCount];
+        String[] partsOfDay = new String[rowCount];
+
+        int row = 0;
+        for (HourlyTable.Day day : sameDateDays) {
+            String location = locations.valueOf(day.seriesId());
+            for (int hour = 0; hour < HOURS_PER_DAY; hour++, row++) {
+                timestamps[row] = day.epochSecond(hour);
+                locationNames[row] = location;
+                temperature[row] = day.measure(0, hour);
+                humidity[row] = day.measure(1, hour);
+                cloudiness[row] = day.measure(2, hour);
+                descriptions[row] = day.label(0, hour);
+                partsOfDay[row] = day.label(1, hour);
+
+                writer.append(Instant.ofEpochSecond(timestamps[row]).toString())
+                        .append(',').append(location)
+                        .append(',').append(formatMeasure(temperature[row]))
+                        .append(',').append(formatMeasure(humidity[row]))
+                        .append(',').append(formatMeasure(cloudiness[row]))
+                        .append(',').append(descriptions[row] != null ? descriptions[row] : "")
+                        .append(',').append(partsOfDay[row] != null ? partsOfDay[row] : "").append('\n');
+            }
+            watermarks.markEmitted(weatherDatasets.get(day.seriesId()), day.date());
+        }
+
+        columnarWriter.writeWeatherPartition(sameDateDays.get(0).date(), timestamps, locationNames,
+                temperature, humidity, cloudiness, descriptions, partsOfDay);
+    }
+
+    private boolean updateJoinedCSV() throws IOException {
+        List<EventTimeJoin.JoinedRecord> records = join.removeFinalizedRecords();
+        records.removeIf(record -> watermarks.isEmitted(JOINED_DATASET, dateOf(record.epochHour())));
+        if (records.isEmpty()) return false;
+
+        Set<LocalDate> days = new TreeSet<>();
+        try (Writer writer = openDataMartFile(JOINED_FILE, JOINED_HEADER)) {
+            for (EventTimeJoin.JoinedRecord record : records) {
+                appendJoinedRow(writer, record, false);
+                days.add(dateOf(record.epochHour()));
+            }
+        }
+        for (LocalDate day : days) {
+            watermarks.markEmitted(JOINED_DATASET, day);
+        }
+        System.out.println("Días combinados añadidos al datamart: " + days.size()
+                + " (eventos tardíos descartados: " + join.getLateEvents() + ")");
+        return true;
+    }
+
+    private void appendJoinedRow(Writer writer, EventTimeJoin.JoinedRecord record, boolean withRevision) throws IOException {
+        double[] price = record.price().measures();
+        double[] weather = record.weather().measures();
+        String[] labels = record.weather().labels();
+
+        writer.append(Instant.ofEpochSecond(record.epochHour() * SECONDS_PER_HOUR).toString())
+                .append(',').append(record.location());
+        if (withRevision) {
+            writer.append(',').append(Integer.toString(record.revision()));
+        }
+        writer.append(',').append(formatMeasure(price[0]))
+                .append(',').append(formatMeasure(price[1]))
+                .append(',').append(formatMeasure(weather[0]))
+                .append(',').append(formatMeasure(weather[1]))
+                .append(',').append(formatMeasure(weather[2]))
+                .append(',').append(labels[0] != null ? labels[0] : "")
+                .append(',').append(labels[1] != null ? labels[1] : "").append('\n');
+    }
+
+    private static LocalDate dateOf(long epochHour) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochHour, HOURS_PER_DAY));
+    }
+
+    private String formatMeasure(double value) {
+        return Double.isNaN(value) ? "" : Double.toString(value);
+    }
+
+    private Writer openDataMartFile(String fileName, String header) throws IOException {
+        File dir = baseFolder.toFile();
+        if (!dir.exists()) dir.mkdirs();
+
+        File file = new File(dir, fileName);
+        boolean isNew = !file.exists() || file.length() == 0;
+        Writer writer = new BufferedWriter(new FileWriter(file, true));
+        if (isNew) {
+            writer.append(header);
+        }
+        return writer;
     }
-}
\ No newline at end of file
+}
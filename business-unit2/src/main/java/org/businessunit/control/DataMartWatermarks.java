@@ -0,0 +1,99 @@
+package org.businessunit.control;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.*;
+
+public class DataMartWatermarks {
+    private final Path stateFile;
+    private final Map<String, TreeSet<LocalDate>> emittedDays = new HashMap<>();
+
+    private DataMartWatermarks(Path stateFile) {
+        this.stateFile = stateFile;
+    }
+
+    public static DataMartWatermarks load(Path stateFile) throws IOException {
+        DataMartWatermarks watermarks = new DataMartWatermarks(stateFile);
+        if (!Files.exists(stateFile)) {
+            return watermarks;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile)) {
+            properties.load(reader);
+        }
+        for (String dataset : properties.stringPropertyNames()) {
+            TreeSet<LocalDate> days = watermarks.daysOf(dataset);
+            for (String range : properties.getProperty(dataset).split(",")) {
+                if (range.isBlank()) continue;
+                String[] bounds = range.split("/");
+                LocalDate end = LocalDate.parse(bounds[bounds.length - 1]);
+                for (LocalDate day = LocalDate.parse(bounds[0]); !day.isAfter(end); day = day.plusDays(1)) {
+                    days.add(day);
+                }
+            }
+        }
+        return watermarks;
+    }
+
+    public boolean exists() {
+        return Files.exists(stateFile);
+    }
+
+    public boolean isEmitted(String dataset, LocalDate day) {
+        TreeSet<LocalDate> days = emittedDays.get(dataset);
+        return days != null && days.contains(day);
+    }
+
+    public void markEmitted(String dataset, LocalDate day) {
+        daysOf(dataset).add(day);
+    }
+
+    public LocalDate getWatermark(String dataset) {
+        TreeSet<LocalDate> days = emittedDays.get(dataset);
+        return days == null || days.isEmpty() ? null : days.last();
+    }
+
+    private TreeSet<LocalDate> daysOf(String dataset) {
+        return emittedDays.computeIfAbsent(dataset, k -> new TreeSet<>());
+    }
+
+    public void save() throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, TreeSet<LocalDate>> entry : emittedDays.entrySet()) {
+            properties.setProperty(entry.getKey(), toRanges(entry.getValue()));
+        }
+
+        Files.createDirectories(stateFile.getParent());
+        Path tempFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile)) {
+            properties.store(writer, "Dias ya volcados al datamart por conjunto de datos");
+        }
+        Files.move(tempFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private String toRanges(TreeSet<LocalDate> days) {
+        StringJoiner ranges = new StringJoiner(",");
+        LocalDate rangeStart = null;
+        LocalDate previous = null;
+
+        for (LocalDate day : days) {
+            if (rangeStart == null) {
+                rangeStart = day;
+            } else if (!day.equals(previous.plusDays(1))) {
+                ranges.add(rangeStart + "/" + previous);
+                rangeStart = day;
+            }
+            previous = day;
+        }
+        if (rangeStart != null) {
+            ranges.add(rangeStart + "/" + previous);
+        }
+        return ranges.toString();
+    }
+}
@@ -0,0 +1,85 @@
+package org.businessunit.control;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+public class EventCodec {
+    public static final String CONTENT_TYPE_PROPERTY = "contentType";
+    public static final String BINARY_CONTENT_TYPE = "application/vnd.pv-event+binary";
+    private static final byte ENERGY_EVENT = 1;
+    private static final byte WEATHER_EVENT = 2;
+    private static final byte SCHEMA_VERSION = 1;
+
+    private EventCodec() {
+    }
+
+    // Mismo formato que EnergyPriceCodec y WeatherCodec de los feeders
+    public static JSONObject decode(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte eventType = in.readByte();
+            byte schemaVersion = in.readByte();
+            if (schemaVersion != SCHEMA_VERSION) {
+                throw new IllegalArgumentException("Versión de esquema no soportada: " + schemaVersion);
+            }
+            return switch (eventType) {
+                case ENERGY_EVENT -> decodeEnergy(in);
+                case WEATHER_EVENT -> decodeWeather(in);
+                default -> throw new IllegalArgumentException("Tipo de evento desconocido: " + eventType);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al decodificar evento binario", e);
+        }
+    }
+
+    private static JSONObject decodeEnergy(DataInputStream in) throws IOException {
+        JSONObject event = new JSONObject();
+        putInstant(event, "ts", in);
+        putInstant(event, "priceTimestamp", in);
+        event.put("pricePVPC", in.readDouble());
+        event.put("priceSpot", in.readDouble());
+        putString(event, "ss", in);
+        return event;
+    }
+
+    private static JSONObject decodeWeather(DataInputStream in) throws IOException {
+        JSONObject event = new JSONObject();
+        putInstant(event, "ts", in);
+        if (in.readBoolean()) {
+            JSONObject location = new JSONObject();
+            putString(location, "name", in);
+            location.put("latitude", in.readDouble());
+            location.put("longitude", in.readDouble());
+            event.put("location", location);
+        }
+        putInstant(event, "predictionTimestamp", in);
+        event.put("temperature", in.readDouble());
+        event.put("humidity", in.readInt());
+        event.put("weatherID", in.readInt());
+        putString(event, "weatherMain", in);
+        putString(event, "weatherDescription", in);
+        event.put("cloudiness", in.readInt());
+        event.put("windSpeed", in.readDouble());
+        event.put("rainVolume", in.readDouble());
+        event.put("snowVolume", in.readDouble());
+        putString(event, "partOfDay", in);
+        putString(event, "ss", in);
+        return event;
+    }
+
+    private static void putInstant(JSONObject event, String name, DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            event.put(name, Instant.ofEpochSecond(in.readLong(), in.readInt()).toString());
+        }
+    }
+
+    private static void putString(JSONObject event, String name, DataInputStream in) throws IOException {
+        if (in.readBoolean()) {
+            event.put(name, in.readUTF());
+        }
+    }
+}
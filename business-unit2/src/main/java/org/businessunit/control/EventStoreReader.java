@@ -1,35 +1,178 @@
 package org.businessunit.control;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class EventStoreReader {
     private static final String ENERGY_EVENTS_PATH = "eventstore/Energy/RedElectricaApi/";
     private static final String WEATHER_EVENTS_PATH = "eventstore/Weather/OpenWeatherApi/";
-    private final DataMartManager dataMartManager = new DataMartManager();
+    private static final int MIN_CHUNK_BYTES = 256 * 1024;
+    private static final int MAX_CHUNK_BYTES = 16 * 1024 * 1024;
+    private static final int PENDING_CHUNKS_PER_THREAD = 4;
+    private final DataMartManager dataMartManager;
+    private final int parallelism;
 
-    public List<String> loadHistoricalEvents(String eventType) {
-        List<String> events = new ArrayList<>();
+    public EventStoreReader(DataMartManager dataMartManager) {
+        this(dataMartManager, Runtime.getRuntime().availableProcessors());
+    }
+
+    public EventStoreReader(DataMartManager dataMartManager, int parallelism) {
+        this.dataMartManager = dataMartManager;
+        this.parallelism = parallelism;
+    }
+
+    public long loadHistoricalEvents(String eventType) {
         String path = eventType.equalsIgnoreCase("energy") ? ENERGY_EVENTS_PATH : WEATHER_EVENTS_PATH;
+        List<File> files = listEventFiles(path);
+        files.sort(Comparator.naturalOrder());
+
+        long replayed = replay(files);
+        System.out.println("Eventos de " + eventType + " reprocesados: " + replayed);
+        return replayed;
+    }
+
+    public long loadHistoricalEvents() {
+        // Both streams are replayed day by day, as they arrived, so the join never sees one stream years ahead of the other
+        List<File> files = listEventFiles(ENERGY_EVENTS_PATH);
+        files.addAll(listEventFiles(WEATHER_EVENTS_PATH));
+        files.sort(Comparator.comparing(File::getName).thenComparing(Comparator.naturalOrder()));
+
+        long replayed = replay(files);
+        System.out.println("Eventos reprocesados: " + replayed);
+        return replayed;
+    }
+
+    private List<File> listEventFiles(String path) {
+        File[] files = new File(path).listFiles((dir, name) -> name.endsWith(".events")
+                || name.endsWith(CompressedEventFile.EXTENSION) && !new File(dir, name.substring(0, name.length() - 2)).exists());
+        return files == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(files));
+    }
 
-        File folder = new File(path);
-        File[] files = folder.listFiles((dir, name) -> name.endsWith(".events"));
+    private long replay(List<File> files) {
+        long replayed = 0;
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            Deque<Future<List<DataMartManager.ParsedEvent>>> pending = new ArrayDeque<>();
+            int maxPending = parallelism * PENDING_CHUNKS_PER_THREAD;
 
-        if (files != null) {
             for (File file : files) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        events.add(line);
-                        dataMartManager.saveToDataMart(line);
+                try {
+                    for (Callable<ByteBuffer> chunk : chunksOf(file)) {
+                        pending.add(pool.submit(() -> parseChunk(chunk.call(), file.getName())));
+                        while (pending.size() >= maxPending) {
+                            replayed += mergeNext(pending);
+                        }
                     }
                 } catch (IOException e) {
                     System.err.println("Error leyendo archivo " + file.getName() + ": " + e.getMessage());
                 }
             }
-            dataMartManager.generateConsolidatedFiles();
+            while (!pending.isEmpty()) {
+                replayed += mergeNext(pending);
+            }
+        }
+
+        dataMartManager.generateConsolidatedFiles();
+        return replayed;
+    }
+
+    private long mergeNext(Deque<Future<List<DataMartManager.ParsedEvent>>> pending) {
+        try {
+            List<DataMartManager.ParsedEvent> events = pending.poll().get();
+            dataMartManager.replayEvents(events);
+            return events.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reproceso del event store interrumpido", e);
+        } catch (ExecutionException e) {
+            System.err.println("Error procesando bloque del event store: " + e.getCause().getMessage());
+            return 0;
+        }
+    }
+
+    private List<Callable<ByteBuffer>> chunksOf(File file) throws IOException {
+        if (file.getName().endsWith(CompressedEventFile.EXTENSION)) {
+            CompressedEventFile compressed = CompressedEventFile.open(file);
+            List<Callable<ByteBuffer>> blocks = new ArrayList<>(compressed.blockCount());
+            for (int i = 0; i < compressed.blockCount(); i++) {
+                int blockIndex = i;
+                blocks.add(() -> compressed.decodeBlock(blockIndex));
+            }
+            return blocks;
+        }
+
+        List<Callable<ByteBuffer>> chunks = new ArrayList<>();
+        for (MappedByteBuffer chunk : mapChunks(file)) {
+            chunks.add(() -> chunk);
+        }
+        return chunks;
+    }
+
+    private List<MappedByteBuffer> mapChunks(File file) throws IOException {
+        List<MappedByteBuffer> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long chunkSize = Math.clamp(size / parallelism, MIN_CHUNK_BYTES, MAX_CHUNK_BYTES);
+            long position = 0;
+
+            while (position < size) {
+                long remaining = size - position;
+                if (remaining <= chunkSize) {
+                    chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, remaining));
+                    break;
+                }
+
+                long length = Math.min(MAX_CHUNK_BYTES, remaining);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = nextLineEnd(region, (int) chunkSize);
+                if (end < 0 && length == remaining) {
+                    end = (int) length;
+                } else if (end < 0) {
+                    throw new IOException("Línea mayor que " + MAX_CHUNK_BYTES + " bytes en posición " + position);
+                }
+                chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, position, end));
+                position += end;
+            }
+        }
+        return chunks;
+    }
+
+    private int nextLineEnd(MappedByteBuffer region, int from) {
+        for (int i = from - 1; i < region.limit(); i++) {
+            if (region.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private List<DataMartManager.ParsedEvent> parseChunk(ByteBuffer chunk, String fileName) {
+        CharBuffer text = StandardCharsets.UTF_8.decode(chunk);
+        List<DataMartManager.ParsedEvent> events = new ArrayList<>();
+        int lineStart = 0;
+
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == '\n') {
+                if (i > lineStart) {
+                    String line = text.subSequence(lineStart, i).toString();
+                    try {
+                        events.add(DataMartManager.parseEvent(line));
+                    } catch (RuntimeException e) {
+                        System.err.println("Evento no válido en " + fileName + ": " + e.getMessage());
+                    }
+                }
+                lineStart = i + 1;
+            }
         }
         return events;
     }
-}
\ No newline at end of file
+}
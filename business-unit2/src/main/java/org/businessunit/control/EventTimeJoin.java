@@ -0,0 +1,108 @@
+package org.businessunit.control;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+public class EventTimeJoin {
+    private static final int HOURS_PER_DAY = HourlyTable.HOURS_PER_DAY;
+    private static final long ENERGY_LATENESS_HOURS = 48;
+    private static final long WEATHER_LATENESS_HOURS = 24 * 6;
+    private static final long STATE_CAPACITY_HOURS = 24 * 60;
+    private static final long UNSEEN = Long.MIN_VALUE;
+
+    public record JoinedRecord(long epochHour, String location, int revision,
+                               DataMartManager.ParsedEvent price, DataMartManager.ParsedEvent weather) {
+    }
+
+    private static class WeatherSlot {
+        DataMartManager.ParsedEvent event;
+        int revision;
+    }
+
+    private final Consumer<JoinedRecord> listener;
+    private final TreeMap<Long, DataMartManager.ParsedEvent> prices = new TreeMap<>();
+    private final TreeMap<Long, TreeMap<String, WeatherSlot>> forecasts = new TreeMap<>();
+    private final List<JoinedRecord> finalized = new ArrayList<>();
+    private long newestEnergyHour = UNSEEN;
+    private long newestWeatherHour = UNSEEN;
+    private long watermark = UNSEEN;
+    private long lateEvents;
+
+    public EventTimeJoin(Consumer<JoinedRecord> listener) {
+        this.listener = listener;
+    }
+
+    public synchronized void accept(DataMartManager.ParsedEvent event) {
+        long hour = event.epochHour();
+        if (hour < watermark) {
+            lateEvents++;
+            return;
+        }
+
+        if (event.isEnergy()) {
+            newestEnergyHour = Math.max(newestEnergyHour, hour);
+            DataMartManager.ParsedEvent previous = prices.put(hour, event);
+            if (previous == null || !sameValues(previous, event)) {
+                TreeMap<String, WeatherSlot> slots = forecasts.get(hour);
+                if (slots != null) {
+                    slots.forEach((location, slot) -> emit(hour, location, event, slot));
+                }
+            }
+        } else {
+            newestWeatherHour = Math.max(newestWeatherHour, hour);
+            WeatherSlot slot = forecasts.computeIfAbsent(hour, h -> new TreeMap<>())
+                    .computeIfAbsent(event.location(), location -> new WeatherSlot());
+            boolean changed = slot.event == null || !sameValues(slot.event, event);
+            slot.event = event;
+
+            DataMartManager.ParsedEvent price = prices.get(hour);
+            if (changed && price != null) {
+                emit(hour, event.location(), price, slot);
+            }
+        }
+
+        advanceWatermark();
+    }
+
+    private void emit(long hour, String location, DataMartManager.ParsedEvent price, WeatherSlot slot) {
+        slot.revision++;
+        listener.accept(new JoinedRecord(hour, location, slot.revision, price, slot.event));
+    }
+
+    private boolean sameValues(DataMartManager.ParsedEvent previous, DataMartManager.ParsedEvent current) {
+        return Arrays.equals(previous.measures(), current.measures()) && Arrays.equals(previous.labels(), current.labels());
+    }
+
+    private void advanceWatermark() {
+        // Until both streams have been seen nothing can be finalized, and a lone stream must not push the other out as late
+        if (newestEnergyHour == UNSEEN || newestWeatherHour == UNSEEN) return;
+
+        long candidate = Math.max(Math.max(newestEnergyHour, newestWeatherHour) - STATE_CAPACITY_HOURS,
+                Math.min(newestEnergyHour - ENERGY_LATENESS_HOURS, newestWeatherHour - WEATHER_LATENESS_HOURS));
+
+        long closedDaysEnd = Math.floorDiv(candidate, HOURS_PER_DAY) * HOURS_PER_DAY;
+        if (closedDaysEnd <= watermark) return;
+        watermark = closedDaysEnd;
+
+        SortedMap<Long, TreeMap<String, WeatherSlot>> closedForecasts = forecasts.headMap(watermark);
+        for (Map.Entry<Long, TreeMap<String, WeatherSlot>> hour : closedForecasts.entrySet()) {
+            DataMartManager.ParsedEvent price = prices.get(hour.getKey());
+            if (price == null) continue;
+
+            hour.getValue().forEach((location, slot) -> finalized.add(
+                    new JoinedRecord(hour.getKey(), location, slot.revision, price, slot.event)));
+        }
+        closedForecasts.clear();
+        prices.headMap(watermark).clear();
+    }
+
+    public synchronized List<JoinedRecord> removeFinalizedRecords() {
+        List<JoinedRecord> records = new ArrayList<>(finalized);
+        finalized.clear();
+        return records;
+    }
+
+    public synchronized long getLateEvents() {
+        return lateEvents;
+    }
+}
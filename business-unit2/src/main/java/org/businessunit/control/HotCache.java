@@ -0,0 +1,93 @@
+package org.businessunit.control;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class HotCache {
+    private static final int ENERGY_CAPACITY_HOURS = 24 * 90;
+    private static final int WEATHER_CAPACITY_HOURS = 24 * 30;
+    private static final int MAX_LOCATIONS = 256;
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final HourlySeries energy = new HourlySeries(ENERGY_CAPACITY_HOURS, 2);
+    private final Map<String, HourlySeries> weather = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HourlySeries> eldest) {
+            return size() > MAX_LOCATIONS;
+        }
+    };
+
+    public void put(DataMartManager.ParsedEvent event) {
+        if (event.isEnergy()) {
+            energy.put(event.epochHour(), event.measures());
+        } else {
+            weatherSeries(event.location(), true).put(event.epochHour(), event.measures());
+        }
+    }
+
+    private HourlySeries weatherSeries(String location, boolean create) {
+        synchronized (weather) {
+            HourlySeries series = weather.get(location);
+            if (series == null && create) {
+                series = new HourlySeries(WEATHER_CAPACITY_HOURS, 3);
+                weather.put(location, series);
+            }
+            return series;
+        }
+    }
+
+    public JSONArray energyBetween(Instant from, Instant to) {
+        JSONArray rows = new JSONArray();
+        energy.forEach(toHour(from), toHour(to), (hour, values) -> rows.put(new JSONObject()
+                .put("priceTimestamp", Instant.ofEpochSecond(hour * SECONDS_PER_HOUR).toString())
+                .put("pricePVPC", jsonValue(values[0]))
+                .put("priceSpot", jsonValue(values[1]))));
+        return rows;
+    }
+
+    public JSONArray weatherBetween(String location, Instant from, Instant to) {
+        HourlySeries series = weatherSeries(location, false);
+        if (series == null) return null;
+
+        JSONArray rows = new JSONArray();
+        series.forEach(toHour(from), toHour(to), (hour, values) -> rows.put(new JSONObject()
+                .put("predictionTimestamp", Instant.ofEpochSecond(hour * SECONDS_PER_HOUR).toString())
+                .put("temperature", jsonValue(values[0]))
+                .put("humidity", jsonValue(values[1]))
+                .put("cloudiness", jsonValue(values[2]))));
+        return rows;
+    }
+
+    void energyColumns(long firstHour, double[] pvpc, double[] spot) {
+        Arrays.fill(pvpc, Double.NaN);
+        Arrays.fill(spot, Double.NaN);
+        energy.forEach(firstHour, firstHour + pvpc.length, (hour, values) -> {
+            pvpc[(int) (hour - firstHour)] = values[0];
+            spot[(int) (hour - firstHour)] = values[1];
+        });
+    }
+
+    void weatherColumns(String location, long firstHour, double[] temperature, double[] cloudiness) {
+        Arrays.fill(temperature, Double.NaN);
+        Arrays.fill(cloudiness, Double.NaN);
+        HourlySeries series = weatherSeries(location, false);
+        if (series == null) return;
+
+        series.forEach(firstHour, firstHour + temperature.length, (hour, values) -> {
+            temperature[(int) (hour - firstHour)] = values[0];
+            cloudiness[(int) (hour - firstHour)] = values[2];
+        });
+    }
+
+    private long toHour(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond() + SECONDS_PER_HOUR - 1, SECONDS_PER_HOUR);
+    }
+
+    private Object jsonValue(double value) {
+        return Double.isNaN(value) ? JSONObject.NULL : value;
+    }
+}
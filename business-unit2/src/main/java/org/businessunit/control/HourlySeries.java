@@ -0,0 +1,62 @@
+package org.businessunit.control;
+
+import java.util.Arrays;
+
+class HourlySeries {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] hours;
+    private final double[][] columns;
+    private long newestHour = EMPTY;
+
+    HourlySeries(int capacityHours, int columnCount) {
+        this.hours = new long[capacityHours];
+        this.columns = new double[columnCount][capacityHours];
+        Arrays.fill(hours, EMPTY);
+    }
+
+    synchronized void put(long epochHour, double[] values) {
+        int slot = (int) Math.floorMod(epochHour, (long) hours.length);
+        if (hours[slot] != EMPTY && hours[slot] > epochHour) {
+            return;
+        }
+
+        hours[slot] = epochHour;
+        for (int column = 0; column < columns.length; column++) {
+            columns[column][slot] = values[column];
+        }
+        newestHour = Math.max(newestHour, epochHour);
+    }
+
+    synchronized boolean get(long epochHour, double[] values) {
+        int slot = (int) Math.floorMod(epochHour, (long) hours.length);
+        if (hours[slot] != epochHour) return false;
+
+        for (int column = 0; column < columns.length; column++) {
+            values[column] = columns[column][slot];
+        }
+        return true;
+    }
+
+    synchronized void forEach(long fromHour, long toHour, HourVisitor visitor) {
+        if (newestHour == EMPTY) return;
+
+        long first = Math.max(fromHour, newestHour - hours.length + 1);
+        long last = Math.min(toHour, newestHour + 1);
+        double[] values = new double[columns.length];
+
+        for (long hour = first; hour < last; hour++) {
+            int slot = (int) Math.floorMod(hour, (long) hours.length);
+            if (hours[slot] != hour) continue;
+
+            for (int column = 0; column < columns.length; column++) {
+                values[column] = columns[column][slot];
+            }
+            visitor.visit(hour, values);
+        }
+    }
+
+    interface HourVisitor {
+        void visit(long epochHour, double[] values);
+    }
+}
@@ -0,0 +1,116 @@
+package org.businessunit.control;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+class HourlyTable {
+    static final int HOURS_PER_DAY = 24;
+    private static final int FULL_DAY = (1 << HOURS_PER_DAY) - 1;
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private final int measureCount;
+    private final int labelCount;
+    private final StringInterner labels = new StringInterner();
+    private final Map<Long, Day> days = new HashMap<>();
+    private Day lastDay;
+
+    HourlyTable(int measureCount, int labelCount) {
+        this.measureCount = measureCount;
+        this.labelCount = labelCount;
+    }
+
+    void put(int seriesId, long epochHour, double[] measures, String[] labelValues) {
+        long epochDay = Math.floorDiv(epochHour, HOURS_PER_DAY);
+        int hour = Math.floorMod(epochHour, HOURS_PER_DAY);
+        Day day = dayOf(seriesId, epochDay);
+
+        for (int measure = 0; measure < measureCount; measure++) {
+            day.measures[measure * HOURS_PER_DAY + hour] = measures[measure];
+        }
+        for (int label = 0; label < labelCount; label++) {
+            day.labels[label * HOURS_PER_DAY + hour] = labels.idOf(labelValues[label]);
+        }
+        day.presentHours |= 1 << hour;
+    }
+
+    private Day dayOf(int seriesId, long epochDay) {
+        long key = (long) seriesId << 32 | (epochDay & 0xFFFFFFFFL);
+        if (lastDay != null && lastDay.key == key) {
+            return lastDay;
+        }
+
+        Day day = days.get(key);
+        if (day == null) {
+            day = new Day(key, seriesId, epochDay, measureCount, labelCount);
+            days.put(key, day);
+        }
+        lastDay = day;
+        return day;
+    }
+
+    List<Day> removeCompleteDays() {
+        List<Day> complete = new ArrayList<>();
+        Iterator<Day> pending = days.values().iterator();
+        while (pending.hasNext()) {
+            Day day = pending.next();
+            if (day.presentHours == FULL_DAY) {
+                complete.add(day);
+                pending.remove();
+            }
+        }
+        lastDay = null;
+        return complete;
+    }
+
+    String labelValue(int id) {
+        return labels.valueOf(id);
+    }
+
+    final class Day {
+        private final long key;
+        private final int seriesId;
+        private final long epochDay;
+        private final double[] measures;
+        private final int[] labels;
+        private int presentHours;
+
+        private Day(long key, int seriesId, long epochDay, int measureCount, int labelCount) {
+            this.key = key;
+            this.seriesId = seriesId;
+            this.epochDay = epochDay;
+            this.measures = new double[measureCount * HOURS_PER_DAY];
+            this.labels = new int[labelCount * HOURS_PER_DAY];
+            Arrays.fill(measures, Double.NaN);
+            Arrays.fill(labels, StringInterner.NONE);
+        }
+
+        int seriesId() {
+            return seriesId;
+        }
+
+        long epochDay() {
+            return epochDay;
+        }
+
+        LocalDate date() {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+
+        long epochSecond(int hour) {
+            return (epochDay * HOURS_PER_DAY + hour) * SECONDS_PER_HOUR;
+        }
+
+        double measure(int measure, int hour) {
+            return measures[measure * HOURS_PER_DAY + hour];
+        }
+
+        String label(int label, int hour) {
+            return labelValue(labels[label * HOURS_PER_DAY + hour]);
+        }
+    }
+}
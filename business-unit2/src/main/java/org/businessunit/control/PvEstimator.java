@@ -0,0 +1,192 @@
+package org.businessunit.control;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+public class PvEstimator {
+    public static final int HORIZON_HOURS = 96;
+
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final int MAX_FORECAST_GAP_HOURS = 2;
+    private static final double HAURWITZ_SCALE = 1098;
+    private static final double HAURWITZ_EXTINCTION = -0.057;
+    private static final double STANDARD_IRRADIANCE = 1000;
+    private static final double PERFORMANCE_RATIO = 0.8;
+    private static final double CELL_HEATING_PER_IRRADIANCE = (45.0 - 20.0) / 800.0;
+    private static final double POWER_TEMPERATURE_COEFFICIENT = -0.004;
+    private static final double STANDARD_CELL_TEMPERATURE = 25;
+
+    public record Installation(String name, String location, double latitude, double longitude, double peakKw) {
+    }
+
+    private final String[] names;
+    private final int[] locationIds;
+    private final double[] sinLatitude;
+    private final double[] cosLatitude;
+    private final double[] sinLongitude;
+    private final double[] cosLongitude;
+    private final double[] peakKw;
+    private final StringInterner locations = new StringInterner();
+
+    public PvEstimator(List<Installation> installations) {
+        int count = installations.size();
+        names = new String[count];
+        locationIds = new int[count];
+        sinLatitude = new double[count];
+        cosLatitude = new double[count];
+        sinLongitude = new double[count];
+        cosLongitude = new double[count];
+        peakKw = new double[count];
+
+        for (int site = 0; site < count; site++) {
+            Installation installation = installations.get(site);
+            double latitude = Math.toRadians(installation.latitude());
+            double longitude = Math.toRadians(installation.longitude());
+            names[site] = installation.name();
+            locationIds[site] = locations.idOf(installation.location().replaceAll("\\s+", "_"));
+            sinLatitude[site] = Math.sin(latitude);
+            cosLatitude[site] = Math.cos(latitude);
+            sinLongitude[site] = Math.sin(longitude);
+            cosLongitude[site] = Math.cos(longitude);
+            peakKw[site] = installation.peakKw();
+        }
+    }
+
+    public int installationCount() {
+        return names.length;
+    }
+
+    public int locationCount() {
+        return locations.size();
+    }
+
+    public void estimate(long firstHour, int hours, double[][] temperature, double[][] cloudiness,
+                         double[] prices, double[] kwh, double[] revenue) {
+        double[] sinDeclination = new double[hours];
+        double[] cosDeclination = new double[hours];
+        double[] sinHourAngle = new double[hours];
+        double[] cosHourAngle = new double[hours];
+        for (int hour = 0; hour < hours; hour++) {
+            solarGeometry(firstHour + hour, hour, sinDeclination, cosDeclination, sinHourAngle, cosHourAngle);
+        }
+
+        double[][] cloudTransmission = new double[cloudiness.length][hours];
+        for (int location = 0; location < cloudiness.length; location++) {
+            for (int hour = 0; hour < hours; hour++) {
+                double cover = cloudiness[location][hour] / 100;
+                cloudTransmission[location][hour] = 1 - 0.75 * Math.pow(cover, 3.4);
+            }
+        }
+
+        for (int site = 0; site < names.length; site++) {
+            double[] transmission = cloudTransmission[locationIds[site]];
+            double[] airTemperature = temperature[locationIds[site]];
+            double sinLat = sinLatitude[site];
+            double cosLat = cosLatitude[site];
+            double sinLon = sinLongitude[site];
+            double cosLon = cosLongitude[site];
+            double ratedKwh = peakKw[site] * PERFORMANCE_RATIO / STANDARD_IRRADIANCE;
+            int offset = site * hours;
+
+            for (int hour = 0; hour < hours; hour++) {
+                double cosHourAngleAtSite = cosHourAngle[hour] * cosLon - sinHourAngle[hour] * sinLon;
+                double cosZenith = Math.max(0, sinLat * sinDeclination[hour] + cosLat * cosDeclination[hour] * cosHourAngleAtSite);
+                double irradiance = HAURWITZ_SCALE * cosZenith * Math.exp(HAURWITZ_EXTINCTION / cosZenith) * transmission[hour];
+                double cellTemperature = airTemperature[hour] + CELL_HEATING_PER_IRRADIANCE * irradiance;
+                double energy = ratedKwh * irradiance
+                        * (1 + POWER_TEMPERATURE_COEFFICIENT * (cellTemperature - STANDARD_CELL_TEMPERATURE));
+
+                kwh[offset + hour] = energy;
+                revenue[offset + hour] = energy * prices[hour] / 1000;
+            }
+        }
+    }
+
+    private void solarGeometry(long epochHour, int index, double[] sinDeclination, double[] cosDeclination,
+                               double[] sinHourAngle, double[] cosHourAngle) {
+        OffsetDateTime midHour = Instant.ofEpochSecond(epochHour * SECONDS_PER_HOUR + SECONDS_PER_HOUR / 2)
+                .atOffset(ZoneOffset.UTC);
+        double utcMinutes = midHour.getHour() * 60 + midHour.getMinute();
+        double year = 2 * Math.PI / midHour.toLocalDate().lengthOfYear()
+                * (midHour.getDayOfYear() - 1 + (midHour.getHour() - 12) / 24.0);
+
+        double declination = 0.006918 - 0.399912 * Math.cos(year) + 0.070257 * Math.sin(year)
+                - 0.006758 * Math.cos(2 * year) + 0.000907 * Math.sin(2 * year)
+                - 0.002697 * Math.cos(3 * year) + 0.00148 * Math.sin(3 * year);
+        double equationOfTime = 229.18 * (0.000075 + 0.001868 * Math.cos(year) - 0.032077 * Math.sin(year)
+                - 0.014615 * Math.cos(2 * year) - 0.040849 * Math.sin(2 * year));
+        double greenwichHourAngle = Math.toRadians((utcMinutes + equationOfTime) / 4 - 180);
+
+        sinDeclination[index] = Math.sin(declination);
+        cosDeclination[index] = Math.cos(declination);
+        sinHourAngle[index] = Math.sin(greenwichHourAngle);
+        cosHourAngle[index] = Math.cos(greenwichHourAngle);
+    }
+
+    public synchronized void writeTable(HotCache hotCache, long firstHour, Path file) throws IOException {
+        if (names.length == 0) return;
+
+        double[] pvpc = new double[HORIZON_HOURS];
+        double[] spot = new double[HORIZON_HOURS];
+        hotCache.energyColumns(firstHour, pvpc, spot);
+
+        double[][] temperature = new double[locations.size()][HORIZON_HOURS];
+        double[][] cloudiness = new double[locations.size()][HORIZON_HOURS];
+        for (int location = 0; location < locations.size(); location++) {
+            hotCache.weatherColumns(locations.valueOf(location), firstHour, temperature[location], cloudiness[location]);
+            fillForecastGaps(temperature[location]);
+            fillForecastGaps(cloudiness[location]);
+        }
+
+        double[] kwh = new double[names.length * HORIZON_HOURS];
+        double[] revenue = new double[names.length * HORIZON_HOURS];
+        estimate(firstHour, HORIZON_HOURS, temperature, cloudiness, pvpc, kwh, revenue);
+
+        String[] timestamps = new String[HORIZON_HOURS];
+        for (int hour = 0; hour < HORIZON_HOURS; hour++) {
+            timestamps[hour] = Instant.ofEpochSecond((firstHour + hour) * SECONDS_PER_HOUR).toString();
+        }
+
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.append("installation,location,hourTimestamp,expectedKwh,expectedRevenuePVPC\n");
+            for (int site = 0; site < names.length; site++) {
+                String location = locations.valueOf(locationIds[site]);
+                for (int hour = 0; hour < HORIZON_HOURS; hour++) {
+                    int row = site * HORIZON_HOURS + hour;
+                    writer.append(names[site])
+                            .append(',').append(location)
+                            .append(',').append(timestamps[hour])
+                            .append(',').append(formatValue(kwh[row]))
+                            .append(',').append(formatValue(revenue[row])).append('\n');
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void fillForecastGaps(double[] values) {
+        double last = Double.NaN;
+        int age = 0;
+        for (int hour = 0; hour < values.length; hour++) {
+            if (!Double.isNaN(values[hour])) {
+                last = values[hour];
+                age = 0;
+            } else if (++age <= MAX_FORECAST_GAP_HOURS) {
+                values[hour] = last;
+            }
+        }
+    }
+
+    private String formatValue(double value) {
+        return Double.isNaN(value) ? "" : Double.toString(value);
+    }
+}
@@ -0,0 +1,98 @@
+package org.businessunit.control;
+
+import java.util.Arrays;
+
+class RunningStatistics {
+    private final int[][] pairs;
+    private long count;
+    private final double[] mean;
+    private final double[] m2;
+    private final double[] min;
+    private final double[] max;
+    private final double[] coMoment;
+    private final double[] delta;
+
+    RunningStatistics(int variables, int[][] pairs) {
+        this.pairs = pairs;
+        this.delta = new double[variables];
+        this.mean = new double[variables];
+        this.m2 = new double[variables];
+        this.min = new double[variables];
+        this.max = new double[variables];
+        this.coMoment = new double[pairs.length];
+        resetExtremes();
+    }
+
+    void add(double[] sample) {
+        count++;
+        for (int i = 0; i < mean.length; i++) {
+            delta[i] = sample[i] - mean[i];
+            mean[i] += delta[i] / count;
+            m2[i] += delta[i] * (sample[i] - mean[i]);
+            min[i] = Math.min(min[i], sample[i]);
+            max[i] = Math.max(max[i], sample[i]);
+        }
+        for (int p = 0; p < pairs.length; p++) {
+            coMoment[p] += delta[pairs[p][0]] * (sample[pairs[p][1]] - mean[pairs[p][1]]);
+        }
+    }
+
+    // Min and max cannot be retracted; after removing, callers rebuild them with resetExtremes/includeInExtremes
+    void remove(double[] sample) {
+        if (count <= 1) {
+            count = 0;
+            Arrays.fill(mean, 0);
+            Arrays.fill(m2, 0);
+            Arrays.fill(coMoment, 0);
+            resetExtremes();
+            return;
+        }
+
+        double[] previousMean = mean.clone();
+        count--;
+        for (int i = 0; i < mean.length; i++) {
+            mean[i] = (previousMean[i] * (count + 1) - sample[i]) / count;
+            m2[i] = Math.max(0, m2[i] - (sample[i] - mean[i]) * (sample[i] - previousMean[i]));
+        }
+        for (int p = 0; p < pairs.length; p++) {
+            coMoment[p] -= (sample[pairs[p][0]] - mean[pairs[p][0]]) * (sample[pairs[p][1]] - previousMean[pairs[p][1]]);
+        }
+    }
+
+    void resetExtremes() {
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    void includeInExtremes(double[] sample) {
+        for (int i = 0; i < min.length; i++) {
+            min[i] = Math.min(min[i], sample[i]);
+            max[i] = Math.max(max[i], sample[i]);
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean(int variable) {
+        return count > 0 ? mean[variable] : Double.NaN;
+    }
+
+    double min(int variable) {
+        return count > 0 ? min[variable] : Double.NaN;
+    }
+
+    double max(int variable) {
+        return count > 0 ? max[variable] : Double.NaN;
+    }
+
+    double variance(int variable) {
+        return count > 1 ? m2[variable] / (count - 1) : Double.NaN;
+    }
+
+    double correlation(int pair) {
+        double denominator = Math.sqrt(m2[pairs[pair][0]] * m2[pairs[pair][1]]);
+        return count > 1 && denominator > 0 ? coMoment[pair] / denominator : Double.NaN;
+    }
+}
@@ -0,0 +1,33 @@
+package org.businessunit.control;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class StringInterner {
+    static final int NONE = -1;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> values = new ArrayList<>();
+
+    int idOf(String value) {
+        if (value == null) return NONE;
+
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    String valueOf(int id) {
+        return id == NONE ? null : values.get(id);
+    }
+
+    int size() {
+        return values.size();
+    }
+}
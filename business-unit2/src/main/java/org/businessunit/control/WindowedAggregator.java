@@ -0,0 +1,218 @@
+package org.businessunit.control;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.*;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+public class WindowedAggregator {
+    private static final int PAIRING_CAPACITY_HOURS = 24 * 14;
+    // A correctable hour is at most 14 days old, and its window can start a week before it
+    private static final int CONTRIBUTED_CAPACITY_HOURS = PAIRING_CAPACITY_HOURS + 24 * 7;
+    private static final int MAX_LOCATIONS = 256;
+    private static final long SECONDS_PER_HOUR = 3600;
+
+    private static final String[] VARIABLES = {"pricePVPC", "priceSpot", "cloudiness", "temperature"};
+    private static final int PVPC = 0;
+    private static final int SPOT = 1;
+    private static final int CLOUDINESS = 2;
+    private static final int TEMPERATURE = 3;
+    private static final int[][] CORRELATED_PAIRS = {{PVPC, CLOUDINESS}, {SPOT, CLOUDINESS}, {PVPC, TEMPERATURE}, {SPOT, TEMPERATURE}};
+    private static final String[] CORRELATION_NAMES = {"corrPVPCCloudiness", "corrSpotCloudiness",
+            "corrPVPCTemperature", "corrSpotTemperature"};
+
+    private static final int WEATHER_TEMPERATURE = 0;
+    private static final int WEATHER_CLOUDINESS = 2;
+
+    public enum Window {
+        HOURLY(1, 48),
+        DAILY(24, 60),
+        WEEKLY(24 * 7, 26);
+
+        private final int hours;
+        private final int retained;
+
+        Window(int hours, int retained) {
+            this.hours = hours;
+            this.retained = retained;
+        }
+
+        long start(long epochHour) {
+            if (this != WEEKLY) return Math.floorDiv(epochHour, hours) * hours;
+            long mondayEpochDay = Math.floorDiv(Math.floorDiv(epochHour, 24) + 3, 7) * 7 - 3;
+            return mondayEpochDay * 24;
+        }
+    }
+
+    private final HourlySeries energy = new HourlySeries(PAIRING_CAPACITY_HOURS, 2);
+    private final Map<String, LocationWindows> locations = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LocationWindows> eldest) {
+            return size() > MAX_LOCATIONS;
+        }
+    };
+    private final double[] energyValues = new double[2];
+    private final double[] weatherValues = new double[2];
+    private final double[] sample = new double[VARIABLES.length];
+    private final double[] previousSample = new double[VARIABLES.length];
+
+    private static class LocationWindows {
+        final HourlySeries weather = new HourlySeries(PAIRING_CAPACITY_HOURS, 2);
+        final HourlySeries contributed = new HourlySeries(CONTRIBUTED_CAPACITY_HOURS, VARIABLES.length);
+        final Map<Window, TreeMap<Long, RunningStatistics>> windows = new EnumMap<>(Window.class);
+
+        LocationWindows() {
+            for (Window window : Window.values()) {
+                windows.put(window, new TreeMap<>());
+            }
+        }
+    }
+
+    public synchronized void accept(DataMartManager.ParsedEvent event) {
+        if (event.isEnergy()) {
+            energy.put(event.epochHour(), event.measures());
+            for (LocationWindows location : locations.values()) {
+                pair(location, event.epochHour());
+            }
+        } else {
+            double[] measures = event.measures();
+            LocationWindows location = locations.computeIfAbsent(event.location(), name -> new LocationWindows());
+            location.weather.put(event.epochHour(), new double[]{measures[WEATHER_TEMPERATURE], measures[WEATHER_CLOUDINESS]});
+            pair(location, event.epochHour());
+        }
+    }
+
+    private void pair(LocationWindows location, long epochHour) {
+        if (!energy.get(epochHour, energyValues) || !location.weather.get(epochHour, weatherValues)) return;
+
+        sample[PVPC] = energyValues[0];
+        sample[SPOT] = energyValues[1];
+        sample[TEMPERATURE] = weatherValues[0];
+        sample[CLOUDINESS] = weatherValues[1];
+        for (double value : sample) {
+            if (Double.isNaN(value)) return;
+        }
+
+        boolean correction = location.contributed.get(epochHour, previousSample);
+        if (correction && Arrays.equals(previousSample, sample)) return;
+
+        for (Window window : Window.values()) {
+            TreeMap<Long, RunningStatistics> windows = location.windows.get(window);
+            long start = window.start(epochHour);
+            RunningStatistics statistics = windows.get(start);
+
+            if (statistics == null) {
+                statistics = new RunningStatistics(VARIABLES.length, CORRELATED_PAIRS);
+                windows.put(start, statistics);
+                if (windows.size() > window.retained) windows.pollFirstEntry();
+            } else if (correction) {
+                statistics.remove(previousSample);
+            }
+            statistics.add(sample);
+        }
+        location.contributed.put(epochHour, sample);
+        if (correction) {
+            rebuildExtremes(location, epochHour);
+        }
+    }
+
+    private void rebuildExtremes(LocationWindows location, long epochHour) {
+        for (Window window : Window.values()) {
+            long start = window.start(epochHour);
+            RunningStatistics statistics = location.windows.get(window).get(start);
+            if (statistics == null) continue;
+
+            statistics.resetExtremes();
+            location.contributed.forEach(start, start + window.hours, (hour, values) -> statistics.includeInExtremes(values));
+        }
+    }
+
+    public synchronized JSONArray query(String location, Window window, Instant from, Instant to) {
+        LocationWindows windows = locations.get(location);
+        if (windows == null) return null;
+
+        JSONArray rows = new JSONArray();
+        long fromHour = Math.floorDiv(from.getEpochSecond(), SECONDS_PER_HOUR);
+        long toHour = Math.floorDiv(to.getEpochSecond(), SECONDS_PER_HOUR);
+        for (Map.Entry<Long, RunningStatistics> entry : windows.windows.get(window).entrySet()) {
+            if (entry.getKey() + window.hours <= fromHour || entry.getKey() >= toHour) continue;
+
+            JSONObject row = new JSONObject()
+                    .put("windowStart", Instant.ofEpochSecond(entry.getKey() * SECONDS_PER_HOUR).toString())
+                    .put("samples", entry.getValue().count());
+            RunningStatistics statistics = entry.getValue();
+            for (int variable = 0; variable < VARIABLES.length; variable++) {
+                row.put(VARIABLES[variable] + "Mean", jsonValue(statistics.mean(variable)))
+                        .put(VARIABLES[variable] + "Min", jsonValue(statistics.min(variable)))
+                        .put(VARIABLES[variable] + "Max", jsonValue(statistics.max(variable)))
+                        .put(VARIABLES[variable] + "Variance", jsonValue(statistics.variance(variable)));
+            }
+            for (int pair = 0; pair < CORRELATED_PAIRS.length; pair++) {
+                row.put(CORRELATION_NAMES[pair], jsonValue(statistics.correlation(pair)));
+            }
+            rows.put(row);
+        }
+        return rows;
+    }
+
+    public synchronized void writeTable(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary)) {
+            writer.append("location,window,windowStart,samples");
+            for (String variable : VARIABLES) {
+                writer.append(',').append(variable).append("Mean")
+                        .append(',').append(variable).append("Min")
+                        .append(',').append(variable).append("Max")
+                        .append(',').append(variable).append("Variance");
+            }
+            for (String correlation : CORRELATION_NAMES) {
+                writer.append(',').append(correlation);
+            }
+            writer.append('\n');
+
+            List<String> names = new ArrayList<>(locations.keySet());
+            Collections.sort(names);
+            for (String name : names) {
+                for (Window window : Window.values()) {
+                    for (Map.Entry<Long, RunningStatistics> entry : locations.get(name).windows.get(window).entrySet()) {
+                        appendRow(writer, name, window, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void appendRow(BufferedWriter writer, String location, Window window, long startHour,
+                           RunningStatistics statistics) throws IOException {
+        writer.append(location)
+                .append(',').append(window.name().toLowerCase())
+                .append(',').append(Instant.ofEpochSecond(startHour * SECONDS_PER_HOUR).toString())
+                .append(',').append(Long.toString(statistics.count()));
+        for (int variable = 0; variable < VARIABLES.length; variable++) {
+            writer.append(',').append(formatValue(statistics.mean(variable)))
+                    .append(',').append(formatValue(statistics.min(variable)))
+                    .append(',').append(formatValue(statistics.max(variable)))
+                    .append(',').append(formatValue(statistics.variance(variable)));
+        }
+        for (int pair = 0; pair < CORRELATED_PAIRS.length; pair++) {
+            writer.append(',').append(formatValue(statistics.correlation(pair)));
+        }
+        writer.append('\n');
+    }
+
+    private String formatValue(double value) {
+        return Double.isNaN(value) ? "" : Double.toString(value);
+    }
+
+    private Object jsonValue(double value) {
+        return Double.isNaN(value) ? JSONObject.NULL : value;
+    }
+}
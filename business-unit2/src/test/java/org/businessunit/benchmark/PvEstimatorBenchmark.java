@@ -0,0 +1,76 @@
+package org.businessunit.benchmark;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.businessunit.control.PvEstimator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PvEstimatorBenchmark {
+    private static final int LOCATIONS = 50;
+    private static final long FIRST_HOUR = Instant.parse("2025-06-01T00:00:00Z").getEpochSecond() / 3600;
+
+    @Param({"1000", "5000"})
+    private int installations;
+
+    private PvEstimator estimator;
+    private double[][] temperature;
+    private double[][] cloudiness;
+    private double[] prices;
+    private double[] kwh;
+    private double[] revenue;
+
+    @Setup(Level.Trial)
+    public void createInstallations() {
+        Random random = new Random(42);
+        List<PvEstimator.Installation> sites = new ArrayList<>(installations);
+        for (int site = 0; site < installations; site++) {
+            sites.add(new PvEstimator.Installation("site-" + site, "location-" + site % LOCATIONS,
+                    27.5 + random.nextDouble() * 16, -18 + random.nextDouble() * 21, 3 + random.nextDouble() * 97));
+        }
+        estimator = new PvEstimator(sites);
+
+        int hours = PvEstimator.HORIZON_HOURS;
+        temperature = new double[estimator.locationCount()][hours];
+        cloudiness = new double[estimator.locationCount()][hours];
+        for (int location = 0; location < estimator.locationCount(); location++) {
+            for (int hour = 0; hour < hours; hour++) {
+                temperature[location][hour] = 10 + random.nextDouble() * 25;
+                cloudiness[location][hour] = random.nextInt(101);
+            }
+        }
+        prices = new double[hours];
+        for (int hour = 0; hour < hours; hour++) {
+            prices[hour] = 20 + random.nextDouble() * 150;
+        }
+        kwh = new double[installations * hours];
+        revenue = new double[installations * hours];
+    }
+
+    @Benchmark
+    public void estimateHorizon(Blackhole blackhole) {
+        estimator.estimate(FIRST_HOUR, PvEstimator.HORIZON_HOURS, temperature, cloudiness, prices, kwh, revenue);
+        blackhole.consume(kwh);
+        blackhole.consume(revenue);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(PvEstimatorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
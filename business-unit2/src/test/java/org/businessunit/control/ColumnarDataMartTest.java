@@ -0,0 +1,125 @@
+package org.businessunit.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.json.JSONArray;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarDataMartTest {
+    private static final LocalDate DAY = LocalDate.of(2025, 5, 18);
+    private static final long FIRST_SECOND = DAY.toEpochDay() * 86400;
+
+    private Path folder;
+    private ColumnarDataMartWriter writer;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("columnar-test");
+        writer = new ColumnarDataMartWriter(folder);
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    void energyPartitionRoundTripsValuesAndStatistics() throws IOException {
+        long[] timestamps = {FIRST_SECOND, FIRST_SECOND + 3600, FIRST_SECOND + 7200};
+        double[] pvpc = {120.5, Double.NaN, 98.25};
+        double[] spot = {40.0, 35.5, -1.5};
+        writer.writeEnergyPartition(DAY, timestamps, pvpc, spot);
+
+        List<ColumnarDataMartReader.Partition> partitions = ColumnarDataMartReader.readRange(
+                folder.resolve("energy"), DAY, DAY, Set.of("priceTimestamp", "pricePVPC", "priceSpot"));
+
+        assertEquals(1, partitions.size());
+        ColumnarDataMartReader.Partition partition = partitions.get(0);
+        assertEquals(3, partition.rowCount());
+        assertArrayEquals(timestamps, partition.timestamps("priceTimestamp"));
+        assertArrayEquals(pvpc, partition.doubles("pricePVPC"));
+        assertArrayEquals(spot, partition.doubles("priceSpot"));
+        assertEquals(98.25, partition.statistics().get("pricePVPC").min());
+        assertEquals(120.5, partition.statistics().get("pricePVPC").max());
+        assertEquals(FIRST_SECOND + 7200, partition.statistics().get("priceTimestamp").max());
+    }
+
+    @Test
+    void weatherPartitionRoundTripsDictionaryColumnsAndProjection() throws IOException {
+        long[] timestamps = {FIRST_SECOND, FIRST_SECOND, FIRST_SECOND + 3600};
+        String[] locations = {"Las_Palmas", "Madrid", "Madrid"};
+        writer.writeWeatherPartition(DAY, timestamps, locations,
+                new double[]{21.0, 18.5, 17.0}, new double[]{70, 40, 45}, new double[]{20, 0, 75},
+                new String[]{"few clouds", null, "broken clouds"}, new String[]{"d", "n", "n"});
+
+        ColumnarDataMartReader.Partition partition = ColumnarDataMartReader.readRange(
+                folder.resolve("weather"), DAY, DAY, Set.of("location", "weatherDescription")).get(0);
+
+        assertArrayEquals(locations, partition.strings("location"));
+        assertArrayEquals(new String[]{"few clouds", "", "broken clouds"}, partition.strings("weatherDescription"));
+        assertNull(partition.columns().get("temperature"));
+        assertEquals("Las_Palmas", partition.statistics().get("location").min());
+        assertEquals("Madrid", partition.statistics().get("location").max());
+    }
+
+    @Test
+    void readRangeSkipsPartitionsOutsideTheRequestedDates() throws IOException {
+        writer.writeEnergyPartition(DAY, new long[]{FIRST_SECOND}, new double[]{1}, new double[]{1});
+        writer.writeEnergyPartition(DAY.plusDays(1), new long[]{FIRST_SECOND + 86400}, new double[]{2}, new double[]{2});
+        writer.writeEnergyPartition(DAY.plusDays(2), new long[]{FIRST_SECOND + 2 * 86400}, new double[]{3}, new double[]{3});
+
+        List<ColumnarDataMartReader.Partition> partitions = ColumnarDataMartReader.readRange(
+                folder.resolve("energy"), DAY.plusDays(1), DAY.plusDays(1), Set.of("pricePVPC"));
+
+        assertEquals(1, partitions.size());
+        assertArrayEquals(new double[]{2}, partitions.get(0).doubles("pricePVPC"));
+    }
+
+    @Test
+    void historyFiltersRowsByLocationAndInstantRange() throws IOException {
+        writer.writeWeatherPartition(DAY, new long[]{FIRST_SECOND, FIRST_SECOND, FIRST_SECOND + 3600},
+                new String[]{"Las_Palmas", "Madrid", "Madrid"},
+                new double[]{21.0, 18.5, 17.0}, new double[]{70, 40, 45}, new double[]{20, 0, 75},
+                new String[]{"few clouds", "clear sky", "broken clouds"}, new String[]{"d", "n", "n"});
+        DataMartHistory history = new DataMartHistory(folder);
+
+        JSONArray madrid = history.weatherBetween("Madrid", Instant.ofEpochSecond(FIRST_SECOND + 1800), Instant.MAX);
+
+        assertEquals(1, madrid.length());
+        assertEquals(75.0, madrid.getJSONObject(0).getDouble("cloudiness"));
+        assertEquals(0, history.weatherBetween("Bilbao", Instant.EPOCH, Instant.MAX).length());
+        assertEquals(0, history.energyBetween(Instant.EPOCH, Instant.MAX).length());
+    }
+
+    @Test
+    void columnsWithoutValuesHaveNoStatisticsRange() throws IOException {
+        writer.writeWeatherPartition(DAY, new long[]{FIRST_SECOND, FIRST_SECOND + 3600},
+                new String[]{"Madrid", "Madrid"},
+                new double[]{Double.NaN, Double.NaN}, new double[]{40, 45}, new double[]{Double.NaN, 10},
+                new String[]{null, null}, new String[]{"d", "d"});
+
+        ColumnarDataMartReader.Partition partition = ColumnarDataMartReader.readRange(
+                folder.resolve("weather"), DAY, DAY, Set.of("temperature")).get(0);
+
+        ColumnarDataMartReader.ColumnStatistics temperature = partition.statistics().get("temperature");
+        assertFalse(temperature.hasRange());
+        assertNull(temperature.min());
+        assertNull(temperature.max());
+        assertFalse(partition.statistics().get("weatherDescription").hasRange());
+        assertEquals(10.0, partition.statistics().get("cloudiness").min());
+        assertEquals(10.0, partition.statistics().get("cloudiness").max());
+        assertTrue(Double.isNaN(partition.doubles("temperature")[1]));
+    }
+}
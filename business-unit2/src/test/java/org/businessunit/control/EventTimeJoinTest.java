@@ -0,0 +1,149 @@
+package org.businessunit.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventTimeJoinTest {
+    private static final long FIRST_HOUR = LocalDate.of(2025, 5, 18).toEpochDay() * HourlyTable.HOURS_PER_DAY;
+
+    private final List<EventTimeJoin.JoinedRecord> emitted = new ArrayList<>();
+    private EventTimeJoin join;
+
+    @BeforeEach
+    void setup() {
+        emitted.clear();
+        join = new EventTimeJoin(emitted::add);
+    }
+
+    private static DataMartManager.ParsedEvent price(long epochHour, double pvpc) {
+        return new DataMartManager.ParsedEvent(null, epochHour, new double[]{pvpc, 50.0}, new String[0]);
+    }
+
+    private static DataMartManager.ParsedEvent weather(String location, long epochHour, double temperature) {
+        return new DataMartManager.ParsedEvent(location, epochHour, new double[]{temperature, 60, 20},
+                new String[]{"few clouds", "d"});
+    }
+
+    @Test
+    void emitsOnceBothSidesOfAnHourHaveArrived() {
+        join.accept(price(FIRST_HOUR, 120.0));
+        assertTrue(emitted.isEmpty());
+
+        join.accept(weather("Madrid", FIRST_HOUR, 18.5));
+        join.accept(weather("Madrid", FIRST_HOUR, 18.5));
+        join.accept(weather("Madrid", FIRST_HOUR + 1, 19.0));
+
+        assertEquals(1, emitted.size());
+        EventTimeJoin.JoinedRecord record = emitted.get(0);
+        assertEquals(FIRST_HOUR, record.epochHour());
+        assertEquals("Madrid", record.location());
+        assertEquals(1, record.revision());
+        assertEquals(120.0, record.price().measures()[0]);
+        assertEquals(18.5, record.weather().measures()[0]);
+    }
+
+    @Test
+    void correctionsOnEitherSideAreReEmittedWithAHigherRevision() {
+        join.accept(weather("Madrid", FIRST_HOUR, 18.5));
+        join.accept(weather("Sevilla", FIRST_HOUR, 24.0));
+        join.accept(price(FIRST_HOUR, 120.0));
+        join.accept(price(FIRST_HOUR, 120.0));
+        assertEquals(2, emitted.size());
+
+        join.accept(price(FIRST_HOUR, 95.0));
+        join.accept(weather("Madrid", FIRST_HOUR, 17.0));
+
+        assertEquals(5, emitted.size());
+        EventTimeJoin.JoinedRecord sevilla = emitted.get(3);
+        assertEquals("Sevilla", sevilla.location());
+        assertEquals(2, sevilla.revision());
+        assertEquals(95.0, sevilla.price().measures()[0]);
+        EventTimeJoin.JoinedRecord madrid = emitted.get(4);
+        assertEquals("Madrid", madrid.location());
+        assertEquals(3, madrid.revision());
+        assertEquals(95.0, madrid.price().measures()[0]);
+        assertEquals(17.0, madrid.weather().measures()[0]);
+    }
+
+    @Test
+    void watermarkFinalizesClosedDaysAndDropsLaterEventsForThem() {
+        for (long hour = FIRST_HOUR; hour < FIRST_HOUR + 24; hour++) {
+            join.accept(price(hour, 100.0));
+            join.accept(weather("Madrid", hour, 20.0));
+        }
+        join.accept(weather("Madrid", FIRST_HOUR + 3, 21.0));
+        assertTrue(join.removeFinalizedRecords().isEmpty());
+
+        long advancedHour = FIRST_HOUR + 8 * 24;
+        join.accept(price(advancedHour, 100.0));
+        join.accept(weather("Madrid", advancedHour, 20.0));
+
+        List<EventTimeJoin.JoinedRecord> finalized = join.removeFinalizedRecords();
+        assertEquals(24, finalized.size());
+        EventTimeJoin.JoinedRecord corrected = finalized.get(3);
+        assertEquals(FIRST_HOUR + 3, corrected.epochHour());
+        assertEquals(2, corrected.revision());
+        assertEquals(21.0, corrected.weather().measures()[0]);
+        assertTrue(join.removeFinalizedRecords().isEmpty());
+
+        int emittedBefore = emitted.size();
+        join.accept(weather("Madrid", FIRST_HOUR + 5, 30.0));
+        assertEquals(1, join.getLateEvents());
+        assertEquals(emittedBefore, emitted.size());
+    }
+
+    @Test
+    void oneStreamAloneNeverMakesTheOtherLate() {
+        for (long hour = FIRST_HOUR; hour < FIRST_HOUR + 100 * 24; hour++) {
+            join.accept(price(hour, 100.0));
+        }
+
+        join.accept(weather("Madrid", FIRST_HOUR, 20.0));
+
+        assertEquals(0, join.getLateEvents());
+        assertEquals(1, emitted.size());
+        assertEquals(FIRST_HOUR, emitted.get(0).epochHour());
+    }
+
+    @Test
+    void historyIsStillJoinedWhenLiveEventsArriveBeforeTheReplay() throws IOException {
+        Path folder = Files.createTempDirectory("datamart-test");
+        try {
+            DataMartManager manager = new DataMartManager(folder, new HotCache(), new WindowedAggregator(),
+                    new PvEstimator(List.of()));
+            long liveHour = FIRST_HOUR + 30 * 24;
+            manager.mergeEvents(List.of(price(liveHour, 150.0), weather("Madrid", liveHour, 25.0)));
+
+            List<DataMartManager.ParsedEvent> history = new ArrayList<>();
+            for (long hour = FIRST_HOUR; hour < FIRST_HOUR + 24; hour++) {
+                history.add(price(hour, 100.0));
+                history.add(weather("Madrid", hour, 20.0));
+            }
+            manager.replayEvents(history);
+            manager.start();
+
+            String firstDay = Instant.ofEpochSecond(FIRST_HOUR * 3600).toString().substring(0, 10);
+            List<String> joined = Files.readAllLines(folder.resolve("joined_consolidated.csv"));
+            assertEquals(24, joined.stream().filter(line -> line.startsWith(firstDay)).count());
+
+            List<String> updates = Files.readAllLines(folder.resolve("joined_updates.csv"));
+            assertEquals(2, updates.size());
+            assertTrue(updates.get(1).startsWith(Instant.ofEpochSecond(liveHour * 3600).toString()));
+        } finally {
+            try (Stream<Path> paths = Files.walk(folder)) {
+                paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.businessunit.control;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.json.JSONObject;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RunningStatisticsTest {
+    private static final int VARIABLES = 3;
+    private static final int[][] PAIRS = {{0, 1}, {0, 2}, {1, 2}};
+    private static final double TOLERANCE = 1e-9;
+
+    private static List<double[]> samples(int count, long seed) {
+        Random random = new Random(seed);
+        List<double[]> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double cloudiness = random.nextInt(101);
+            samples.add(new double[]{
+                    80 + random.nextGaussian() * 25 - cloudiness * 0.3,
+                    cloudiness,
+                    15 + random.nextGaussian() * 6
+            });
+        }
+        return samples;
+    }
+
+    private static double mean(List<double[]> samples, int variable) {
+        double sum = 0;
+        for (double[] sample : samples) sum += sample[variable];
+        return sum / samples.size();
+    }
+
+    private static double coVariance(List<double[]> samples, int first, int second) {
+        double firstMean = mean(samples, first);
+        double secondMean = mean(samples, second);
+        double sum = 0;
+        for (double[] sample : samples) sum += (sample[first] - firstMean) * (sample[second] - secondMean);
+        return sum / (samples.size() - 1);
+    }
+
+    private static void assertMatchesRecomputed(List<double[]> expected, RunningStatistics statistics) {
+        assertEquals(expected.size(), statistics.count());
+        for (int variable = 0; variable < VARIABLES; variable++) {
+            assertEquals(mean(expected, variable), statistics.mean(variable), TOLERANCE);
+            assertEquals(coVariance(expected, variable, variable), statistics.variance(variable), 1e-7);
+        }
+        for (int pair = 0; pair < PAIRS.length; pair++) {
+            int first = PAIRS[pair][0];
+            int second = PAIRS[pair][1];
+            double pearson = coVariance(expected, first, second)
+                    / Math.sqrt(coVariance(expected, first, first) * coVariance(expected, second, second));
+            assertEquals(pearson, statistics.correlation(pair), TOLERANCE);
+        }
+    }
+
+    @Test
+    void addThenRemoveMatchesStatisticsRecomputedOverRemainingSamples() {
+        List<double[]> samples = samples(500, 7);
+        RunningStatistics statistics = new RunningStatistics(VARIABLES, PAIRS);
+        samples.forEach(statistics::add);
+
+        for (double[] sample : samples.subList(0, 350)) {
+            statistics.remove(sample);
+        }
+
+        assertMatchesRecomputed(samples.subList(350, 500), statistics);
+    }
+
+    @Test
+    void correctionReplacesOneSampleInPlace() {
+        List<double[]> samples = samples(48, 11);
+        RunningStatistics statistics = new RunningStatistics(VARIABLES, PAIRS);
+        samples.forEach(statistics::add);
+
+        int extreme = 0;
+        for (int i = 1; i < samples.size(); i++) {
+            if (samples.get(i)[0] > samples.get(extreme)[0]) extreme = i;
+        }
+        double[] corrected = {mean(samples, 0), 5.0, 31.5};
+        statistics.remove(samples.get(extreme));
+        statistics.add(corrected);
+        samples.set(extreme, corrected);
+        statistics.resetExtremes();
+        samples.forEach(statistics::includeInExtremes);
+
+        assertMatchesRecomputed(samples, statistics);
+        for (int variable = 0; variable < VARIABLES; variable++) {
+            int column = variable;
+            assertEquals(samples.stream().mapToDouble(sample -> sample[column]).min().getAsDouble(), statistics.min(variable));
+            assertEquals(samples.stream().mapToDouble(sample -> sample[column]).max().getAsDouble(), statistics.max(variable));
+        }
+    }
+
+    @Test
+    void aggregatorRetractsTheExtremeOfASupersededForecast() {
+        long hour = LocalDate.of(2025, 5, 18).toEpochDay() * 24 + 12;
+        WindowedAggregator aggregator = new WindowedAggregator();
+        aggregator.accept(new DataMartManager.ParsedEvent(null, hour, new double[]{120.0, 50.0}, new String[0]));
+        aggregator.accept(new DataMartManager.ParsedEvent(null, hour + 1, new double[]{90.0, 45.0}, new String[0]));
+        aggregator.accept(new DataMartManager.ParsedEvent("Madrid", hour, new double[]{35.0, 40, 10}, new String[]{"", "d"}));
+        aggregator.accept(new DataMartManager.ParsedEvent("Madrid", hour + 1, new double[]{22.0, 40, 80}, new String[]{"", "d"}));
+
+        aggregator.accept(new DataMartManager.ParsedEvent("Madrid", hour, new double[]{18.0, 40, 60}, new String[]{"", "d"}));
+
+        JSONObject day = aggregator.query("Madrid", WindowedAggregator.Window.DAILY, Instant.EPOCH, Instant.MAX).getJSONObject(0);
+        assertEquals(2, day.getLong("samples"));
+        assertEquals(18.0, day.getDouble("temperatureMin"));
+        assertEquals(22.0, day.getDouble("temperatureMax"));
+        assertEquals(60.0, day.getDouble("cloudinessMin"));
+        assertEquals(80.0, day.getDouble("cloudinessMax"));
+        assertEquals(20.0, day.getDouble("temperatureMean"), TOLERANCE);
+    }
+
+    @Test
+    void removingEverySampleResetsToEmpty() {
+        List<double[]> samples = samples(3, 13);
+        RunningStatistics statistics = new RunningStatistics(VARIABLES, PAIRS);
+        samples.forEach(statistics::add);
+        samples.forEach(statistics::remove);
+
+        assertEquals(0, statistics.count());
+        assertTrue(Double.isNaN(statistics.mean(0)));
+        assertTrue(Double.isNaN(statistics.variance(0)));
+        assertTrue(Double.isNaN(statistics.correlation(0)));
+
+        statistics.add(new double[]{1, 2, 3});
+        statistics.add(new double[]{3, 6, 1});
+        assertEquals(2.0, statistics.mean(0), TOLERANCE);
+        assertEquals(1.0, statistics.correlation(0), TOLERANCE);
+        assertEquals(-1.0, statistics.correlation(1), TOLERANCE);
+    }
+}
@@ -1,31 +1,40 @@
 package org.messiyronaldo.energy;
 
+import org.messiyronaldo.energy.control.EnergyBackfill;
 import org.messiyronaldo.energy.control.REEEnergyProvider;
 import org.messiyronaldo.energy.control.EnergyPublisher;
-import org.messiyronaldo.energy.model.EnergyPrice;
+import org.messiyronaldo.energy.utils.RateLimiter;
 
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.List;
+import java.util.Arrays;
 
 public class FetchLastMonth {
+    private static final int MAX_CONCURRENT_REQUESTS = 4;
+    private static final int REQUESTS_PER_MINUTE = 30;
+    private static final Path CHECKPOINT_FILE = Path.of("energy-backfill.checkpoint");
+    private static final String BINARY_EVENTS_FLAG = "--binary-events";
+
     public static void main(String[] args) throws Exception {
         REEEnergyProvider provider = new REEEnergyProvider();
-        EnergyPublisher publisher = new EnergyPublisher();
+        EnergyPublisher publisher = new EnergyPublisher(Arrays.asList(args).contains(BINARY_EVENTS_FLAG));
         publisher.start();
 
         LocalDate today = LocalDate.now();
         LocalDate start = today.minusYears(1);
         LocalDate end = today;
 
-        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
-            List<EnergyPrice> prices = provider.getEnergyPrices(date);
-            for (EnergyPrice price : prices) {
-                publisher.publish(price);
-            }
-            System.out.println("Published for " + date + ": " + prices.size() + " records");
-            Thread.sleep(1000);
+        EnergyBackfill backfill = new EnergyBackfill(provider, REEEnergyProvider.MAX_RANGE_DAYS,
+                MAX_CONCURRENT_REQUESTS, new RateLimiter(REQUESTS_PER_MINUTE, MAX_CONCURRENT_REQUESTS), CHECKPOINT_FILE);
+        int failedWindows = backfill.run(start, end, prices -> {
+            publisher.publishAll(prices);
+            System.out.println("Published " + prices.size() + " records");
+        });
+
+        if (failedWindows > 0) {
+            System.out.println(failedWindows + " windows failed, run again to resume from " + CHECKPOINT_FILE);
         }
 
         publisher.close();
     }
-}
\ No newline at end of file
+}
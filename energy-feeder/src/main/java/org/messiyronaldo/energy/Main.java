@@ -4,12 +4,18 @@ import org.messiyronaldo.energy.control.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
+
 public class Main {
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
     private static final long UPDATE_INTERVAL_MINUTES = 60 * 12; // 12 hours
+    private static final String BINARY_EVENTS_FLAG = "--binary-events";
     private static EnergyController energyController;
+    private static SQLiteEnergyPriceStore sqliteStore;
 
     public static void main(String[] args) {
+        boolean publishBinaryEvents = Arrays.asList(args).contains(BINARY_EVENTS_FLAG);
+        args = Arrays.stream(args).filter(arg -> !arg.equals(BINARY_EVENTS_FLAG)).toArray(String[]::new);
         validateArguments(args);
 
         String databaseFileName = args[0];
@@ -20,11 +26,12 @@ public class Main {
         EnergyPublisher energyPublisher = null;
 
         if (storeType.equals("sql")) {
-            energyStore = new SQLiteEnergyPriceStore(databaseFileName);
+            sqliteStore = new SQLiteEnergyPriceStore(databaseFileName);
+            energyStore = sqliteStore;
         } else if (storeType.equals("activemq")) {
-            energyPublisher = new EnergyPublisher();
+            energyPublisher = new EnergyPublisher(publishBinaryEvents);
             energyPublisher.start();
-            logger.info("Energy publisher started successfully");
+            logger.info("Energy publisher started successfully ({} events)", publishBinaryEvents ? "binary" : "JSON");
         } else {
             logger.error("Invalid store type. Use 'sql' or 'activemq'.");
             System.exit(1);
@@ -44,7 +51,7 @@ public class Main {
 
     private static void validateArguments(String[] args) {
         if (args.length != 2) {
-            logger.error("Invalid arguments. Usage: java -jar energy-feeder.jar <database-file> <store-type>");
+            logger.error("Invalid arguments. Usage: java -jar energy-feeder.jar <database-file> <store-type> [" + BINARY_EVENTS_FLAG + "]");
             System.exit(1);
         }
     }
@@ -61,6 +68,9 @@ public class Main {
             energyController.shutdown();
             logger.info("Energy controller shut down successfully");
         }
+        if (sqliteStore != null) {
+            sqliteStore.close();
+        }
     }
 
     private static void keepApplicationRunning() {
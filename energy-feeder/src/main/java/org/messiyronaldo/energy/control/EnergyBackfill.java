@@ -0,0 +1,129 @@
+package org.messiyronaldo.energy.control;
+
+import org.messiyronaldo.energy.model.EnergyPrice;
+import org.messiyronaldo.energy.utils.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+public class EnergyBackfill {
+	private static final Logger logger = LoggerFactory.getLogger(EnergyBackfill.class);
+	private final EnergyPricesProvider provider;
+	private final int windowDays;
+	private final Semaphore concurrencyLimit;
+	private final RateLimiter rateLimiter;
+	private final Path checkpointFile;
+
+	public EnergyBackfill(EnergyPricesProvider provider, int windowDays, int maxConcurrentRequests,
+						  RateLimiter rateLimiter, Path checkpointFile) {
+		this.provider = provider;
+		this.windowDays = windowDays;
+		this.concurrencyLimit = new Semaphore(maxConcurrentRequests);
+		this.rateLimiter = rateLimiter;
+		this.checkpointFile = checkpointFile;
+	}
+
+	public int run(LocalDate from, LocalDate to, Consumer<List<EnergyPrice>> sink) throws IOException, InterruptedException {
+		Set<LocalDate> completedDays = loadCheckpoint();
+		List<Window> pendingWindows = splitIntoWindows(from, to, completedDays);
+		logger.info("Backfilling energy prices from {} to {}: {} windows pending", from, to, pendingWindows.size());
+
+		List<Future<Boolean>> results = new ArrayList<>();
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (Window window : pendingWindows) {
+				results.add(executor.submit(() -> fetchWindow(window, sink)));
+			}
+		}
+
+		int failedWindows = 0;
+		for (Future<Boolean> result : results) {
+			try {
+				if (!result.get()) failedWindows++;
+			} catch (ExecutionException e) {
+				failedWindows++;
+			}
+		}
+
+		logger.info("Energy backfill finished: {} windows completed, {} failed",
+			pendingWindows.size() - failedWindows, failedWindows);
+		return failedWindows;
+	}
+
+	private List<Window> splitIntoWindows(LocalDate from, LocalDate to, Set<LocalDate> completedDays) {
+		List<Window> windows = new ArrayList<>();
+		for (LocalDate start = from; !start.isAfter(to); start = start.plusDays(windowDays)) {
+			LocalDate end = start.plusDays(windowDays - 1);
+			Window window = new Window(start, end.isAfter(to) ? to : end);
+			if (!window.isCoveredBy(completedDays)) {
+				windows.add(window);
+			}
+		}
+		return windows;
+	}
+
+	private boolean fetchWindow(Window window, Consumer<List<EnergyPrice>> sink) throws InterruptedException {
+		rateLimiter.acquire();
+		concurrencyLimit.acquire();
+		try {
+			List<EnergyPrice> prices = provider.getEnergyPrices(window.from(), window.to());
+			synchronized (sink) {
+				sink.accept(prices);
+			}
+			saveCheckpoint(window);
+			logger.info("Backfilled {} to {}: {} records", window.from(), window.to(), prices.size());
+			return true;
+		} catch (IOException | RuntimeException e) {
+			logger.error("Failed to backfill {} to {}: {}", window.from(), window.to(), e.getMessage(), e);
+			return false;
+		} finally {
+			concurrencyLimit.release();
+		}
+	}
+
+	private Set<LocalDate> loadCheckpoint() throws IOException {
+		Set<LocalDate> completedDays = new HashSet<>();
+		if (!Files.exists(checkpointFile)) {
+			return completedDays;
+		}
+
+		for (String line : Files.readAllLines(checkpointFile)) {
+			String[] range = line.split(",");
+			if (range.length != 2) continue;
+
+			LocalDate end = LocalDate.parse(range[1]);
+			for (LocalDate day = LocalDate.parse(range[0]); !day.isAfter(end); day = day.plusDays(1)) {
+				completedDays.add(day);
+			}
+		}
+		return completedDays;
+	}
+
+	private synchronized void saveCheckpoint(Window window) throws IOException {
+		Files.writeString(checkpointFile, window.from() + "," + window.to() + System.lineSeparator(),
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+	}
+
+	private record Window(LocalDate from, LocalDate to) {
+		boolean isCoveredBy(Set<LocalDate> completedDays) {
+			for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+				if (!completedDays.contains(day)) return false;
+			}
+			return true;
+		}
+	}
+}
@@ -4,7 +4,6 @@ import org.messiyronaldo.energy.model.EnergyPrice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -45,14 +44,18 @@ public class EnergyController {
 	}
 
 	private void updateEnergyPrices() {
-		try {
-			LocalDate today = LocalDate.now();
-			List<EnergyPrice> prices = energyProvider.getEnergyPrices(today);
-
-			processRetrievedPrices(today, prices);
-		} catch (IOException e) {
-			logUpdateError(e);
-		}
+		LocalDate today = LocalDate.now();
+		energyProvider.getEnergyPricesAsync(today).whenComplete((prices, error) -> {
+			if (error != null) {
+				logUpdateError(error);
+				return;
+			}
+			try {
+				processRetrievedPrices(today, prices);
+			} catch (RuntimeException e) {
+				logUpdateError(e);
+			}
+		});
 	}
 
 	private void processRetrievedPrices(LocalDate date, List<EnergyPrice> prices) {
@@ -63,9 +66,7 @@ public class EnergyController {
 			}
 
 			if (energyPublisher != null) {
-				for (EnergyPrice price : prices) {
-					energyPublisher.publish(price);
-				}
+				energyPublisher.publishAll(prices);
 				logger.info("Energy prices published for date: {}", date);
 			}
 
@@ -84,7 +85,7 @@ public class EnergyController {
 		logger.warn("No energy price data retrieved for date: {}", date);
 	}
 
-	private void logUpdateError(Exception e) {
+	private void logUpdateError(Throwable e) {
 		logger.error("Failed to update energy price data: {}", e.getMessage(), e);
 	}
 
@@ -4,7 +4,11 @@ import org.messiyronaldo.energy.model.EnergyPrice;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface EnergyPricesProvider {
 	List<EnergyPrice> getEnergyPrices(LocalDate date) throws IOException;
+	List<EnergyPrice> getEnergyPrices(LocalDate from, LocalDate to) throws IOException;
+	CompletableFuture<List<EnergyPrice>> getEnergyPricesAsync(LocalDate date);
+	CompletableFuture<List<EnergyPrice>> getEnergyPricesAsync(LocalDate from, LocalDate to);
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.messiyronaldo.energy.model.EnergyPrice;
+import org.messiyronaldo.energy.utils.EnergyPriceCodec;
 import org.messiyronaldo.energy.utils.InstantTypeAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,20 +12,30 @@ import org.slf4j.LoggerFactory;
 import javax.jms.*;
 import java.time.Instant;
 import java.lang.IllegalStateException;
+import java.util.List;
 
 public class EnergyPublisher implements Publisher {
 	private static final Logger logger = LoggerFactory.getLogger(EnergyPublisher.class);
 	private static final String BROKER_URL = "tcp://localhost:61616";
 	private static final String TOPIC_NAME = "prediction.Energy";
-	private static final int SESSION_ACKNOWLEDGE_MODE = Session.AUTO_ACKNOWLEDGE;
-	private static final boolean TRANSACTED = false;
+	private static final int SESSION_ACKNOWLEDGE_MODE = Session.SESSION_TRANSACTED;
+	private static final boolean TRANSACTED = true;
 
 	private final Gson gson;
+	private final boolean binaryEvents;
+	private final Object sessionLock = new Object();
 	private Connection connection;
+	private Session session;
+	private MessageProducer producer;
 	private volatile boolean started = false;
 
 	public EnergyPublisher() {
-		gson = createGsonInstance();
+		this(false);
+	}
+
+	public EnergyPublisher(boolean binaryEvents) {
+		this.gson = createGsonInstance();
+		this.binaryEvents = binaryEvents;
 	}
 
 	private Gson createGsonInstance() {
@@ -54,6 +65,8 @@ public class EnergyPublisher implements Publisher {
 		try {
 			connection = createConnection();
 			connection.start();
+			session = createSession();
+			producer = createProducer(session);
 			started = true;
 			logger.info("Energy publisher started successfully");
 		} catch (JMSException e) {
@@ -73,21 +86,33 @@ public class EnergyPublisher implements Publisher {
 
 	@Override
 	public void publish(EnergyPrice price) {
+		publishAll(List.of(price));
+	}
+
+	@Override
+	public void publishAll(List<EnergyPrice> prices) {
 		validatePublisherState();
 
-		Session session = null;
-		MessageProducer producer = null;
+		synchronized (sessionLock) {
+			try {
+				for (EnergyPrice price : prices) {
+					sendEnergyEvent(price, session, producer);
+				}
+				session.commit();
+				logger.debug("Committed {} energy price events", prices.size());
+			} catch (JMSException e) {
+				rollbackSession();
+				logger.error("Failed to publish energy prices: {}", e.getMessage(), e);
+				throw new RuntimeException("Failed to publish energy prices", e);
+			}
+		}
+	}
 
+	private void rollbackSession() {
 		try {
-			session = createSession();
-			producer = createProducer(session);
-			sendEnergyEvent(price, session, producer);
-			//logPublishedEvent();
+			session.rollback();
 		} catch (JMSException e) {
-			logger.error("Failed to publish energy price: {}", e.getMessage(), e);
-			throw new RuntimeException("Failed to publish energy price", e);
-		} finally {
-			closeResources(session, producer);
+			logger.warn("Error rolling back JMS session: {}", e.getMessage());
 		}
 	}
 
@@ -119,17 +144,23 @@ public class EnergyPublisher implements Publisher {
 	}
 
 	private void sendEnergyEvent(EnergyPrice price, Session session, MessageProducer producer) throws JMSException {
+		if (binaryEvents) {
+			BytesMessage message = session.createBytesMessage();
+			message.writeBytes(EnergyPriceCodec.encode(price));
+			message.setStringProperty(EnergyPriceCodec.CONTENT_TYPE_PROPERTY, EnergyPriceCodec.BINARY_CONTENT_TYPE);
+			message.setIntProperty(EnergyPriceCodec.SCHEMA_VERSION_PROPERTY, EnergyPriceCodec.SCHEMA_VERSION);
+			producer.send(message);
+			logger.debug("Sent binary energy price event: {}", price);
+			return;
+		}
+
 		String json = gson.toJson(price);
 		TextMessage message = session.createTextMessage(json);
 		producer.send(message);
 		logger.debug("Sent energy price event: {}", json);
 	}
 
-	private void logPublishedEvent() {
-		logger.info("Published energy price event");
-	}
-
-	private void closeResources(Session session, MessageProducer producer) {
+	private void closeResources() {
 		if (producer != null) {
 			try {
 				producer.close();
@@ -156,6 +187,9 @@ public class EnergyPublisher implements Publisher {
 		}
 
 		try {
+			synchronized (sessionLock) {
+				closeResources();
+			}
 			if (connection != null) {
 				connection.close();
 				logger.debug("JMS connection closed");
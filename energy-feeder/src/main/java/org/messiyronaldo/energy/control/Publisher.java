@@ -2,8 +2,11 @@ package org.messiyronaldo.energy.control;
 
 import org.messiyronaldo.energy.model.EnergyPrice;
 
+import java.util.List;
+
 public interface Publisher {
 	void start();
 	void publish(EnergyPrice event);
+	void publishAll(List<EnergyPrice> events);
 	void close();
 }
@@ -1,61 +1,100 @@
 package org.messiyronaldo.energy.control;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.messiyronaldo.energy.model.EnergyPrice;
+import org.messiyronaldo.energy.utils.SharedHttpClient;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 public class REEEnergyProvider implements EnergyPricesProvider {
+	public static final int MAX_RANGE_DAYS = 31;
 	private static final String BASE_URL = "https://apidatos.ree.es/es/datos/mercados/precios-mercados-tiempo-real";
 	private static final String SOURCE_SYSTEM = "RedElectricaApi";
 	private static final ZoneId SPAIN_ZONE_ID = ZoneId.of("Europe/Madrid");
+	private static final int MARKET_TYPES = 2;
+	private static final long SECONDS_PER_HOUR = 3600;
 	private final OkHttpClient client;
-	private final Gson gson;
 
 	public REEEnergyProvider(OkHttpClient client) {
-		this.client = client != null ? client : createDefaultClient();
-		this.gson = new Gson();
+		this.client = client != null ? client : SharedHttpClient.get();
 	}
 
 	public REEEnergyProvider() {
 		this(null);
 	}
 
-	private OkHttpClient createDefaultClient() {
-		return new OkHttpClient.Builder()
-				.connectTimeout(10, TimeUnit.SECONDS)
-				.readTimeout(30, TimeUnit.SECONDS)
-				.build();
+	@Override
+	public List<EnergyPrice> getEnergyPrices(LocalDate date) throws IOException {
+		return fetchRange(date, date);
 	}
 
 	@Override
-	public List<EnergyPrice> getEnergyPrices(LocalDate date) throws IOException {
-		String url = buildApiUrl(date);
+	public List<EnergyPrice> getEnergyPrices(LocalDate from, LocalDate to) throws IOException {
+		List<EnergyPrice> prices = new ArrayList<>();
+		for (LocalDate windowStart = from; !windowStart.isAfter(to); windowStart = windowStart.plusDays(MAX_RANGE_DAYS)) {
+			LocalDate windowEnd = windowStart.plusDays(MAX_RANGE_DAYS - 1);
+			prices.addAll(fetchRange(windowStart, windowEnd.isAfter(to) ? to : windowEnd));
+		}
+		return prices;
+	}
+
+	@Override
+	public CompletableFuture<List<EnergyPrice>> getEnergyPricesAsync(LocalDate date) {
+		return fetchRangeAsync(date, date);
+	}
+
+	@Override
+	public CompletableFuture<List<EnergyPrice>> getEnergyPricesAsync(LocalDate from, LocalDate to) {
+		List<CompletableFuture<List<EnergyPrice>>> windows = new ArrayList<>();
+		for (LocalDate windowStart = from; !windowStart.isAfter(to); windowStart = windowStart.plusDays(MAX_RANGE_DAYS)) {
+			LocalDate windowEnd = windowStart.plusDays(MAX_RANGE_DAYS - 1);
+			windows.add(fetchRangeAsync(windowStart, windowEnd.isAfter(to) ? to : windowEnd));
+		}
+
+		return CompletableFuture.allOf(windows.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+			List<EnergyPrice> prices = new ArrayList<>();
+			for (CompletableFuture<List<EnergyPrice>> window : windows) {
+				prices.addAll(window.join());
+			}
+			return prices;
+		});
+	}
+
+	private CompletableFuture<List<EnergyPrice>> fetchRangeAsync(LocalDate from, LocalDate to) {
+		String url = buildApiUrl(from, to);
+
+		Instant rangeStart = from.atStartOfDay(SPAIN_ZONE_ID).toInstant();
+		Instant rangeEnd = to.plusDays(1).atStartOfDay(SPAIN_ZONE_ID).toInstant();
+		return fetchDataFromApiAsync(url, rangeStart, (int) Duration.between(rangeStart, rangeEnd).toHours());
+	}
+
+	private List<EnergyPrice> fetchRange(LocalDate from, LocalDate to) throws IOException {
+		String url = buildApiUrl(from, to);
 		//logQueryUrl(url);
 
-		String jsonResponse = fetchDataFromApi(url);
-		return parseEnergyPrices(jsonResponse);
+		Instant rangeStart = from.atStartOfDay(SPAIN_ZONE_ID).toInstant();
+		Instant rangeEnd = to.plusDays(1).atStartOfDay(SPAIN_ZONE_ID).toInstant();
+		return fetchDataFromApi(url, rangeStart, (int) Duration.between(rangeStart, rangeEnd).toHours());
 	}
 
-	private String buildApiUrl(LocalDate date) {
-		String startDate = formatDateParameter(date, "T00:00");
-		String endDate = formatDateParameter(date, "T23:59");
+	private String buildApiUrl(LocalDate from, LocalDate to) {
+		String startDate = formatDateParameter(from, "T00:00");
+		String endDate = formatDateParameter(to, "T23:59");
 
 		return BASE_URL +
 				"?start_date=" + urlEncode(startDate) +
@@ -75,15 +114,41 @@ public class REEEnergyProvider implements EnergyPricesProvider {
 		System.out.println("Query URL: " + url);
 	}
 
-	private String fetchDataFromApi(String url) throws IOException {
+	private List<EnergyPrice> fetchDataFromApi(String url, Instant rangeStart, int hourSlots) throws IOException {
 		Request request = buildApiRequest(url);
 
 		try (Response response = client.newCall(request).execute()) {
 			validateResponse(response);
-			return extractResponseBody(response);
+			return parseEnergyPrices(extractResponseBody(response), rangeStart, hourSlots);
 		}
 	}
 
+	private CompletableFuture<List<EnergyPrice>> fetchDataFromApiAsync(String url, Instant rangeStart, int hourSlots) {
+		CompletableFuture<List<EnergyPrice>> result = new CompletableFuture<>();
+		Call call = client.newCall(buildApiRequest(url));
+
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(Call call, IOException e) {
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) {
+				try (response) {
+					validateResponse(response);
+					result.complete(parseEnergyPrices(extractResponseBody(response), rangeStart, hourSlots));
+				} catch (IOException | RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			}
+		});
+		result.whenComplete((prices, error) -> {
+			if (result.isCancelled()) call.cancel();
+		});
+		return result;
+	}
+
 	private Request buildApiRequest(String url) {
 		return new Request.Builder()
 				.url(url)
@@ -97,94 +162,140 @@ public class REEEnergyProvider implements EnergyPricesProvider {
 		}
 	}
 
-	private String extractResponseBody(Response response) throws IOException {
+	private Reader extractResponseBody(Response response) throws IOException {
 		if (response.body() == null) {
 			throw new IOException("Empty response body");
 		}
 
-		return response.body().string();
+		return response.body().charStream();
 	}
 
-	private List<EnergyPrice> parseEnergyPrices(String jsonResponse) {
-		JsonObject rootObject = gson.fromJson(jsonResponse, JsonObject.class);
-		JsonArray includedArray = rootObject.getAsJsonArray("included");
-
-		if (includedArray == null || includedArray.isEmpty()) {
-			return new ArrayList<>();
+	private List<EnergyPrice> parseEnergyPrices(Reader source, Instant rangeStart, int hourSlots) throws IOException {
+		// One slot per hour of the range: 23 or 25 on DST change days instead of 24
+		double[][] pricesByHour = new double[MARKET_TYPES][hourSlots];
+		boolean[] hourPresent = new boolean[hourSlots];
+
+		try (JsonReader reader = new JsonReader(source)) {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals("included")) {
+					extractPricesByHour(reader, rangeStart.getEpochSecond(), pricesByHour, hourPresent);
+				} else {
+					reader.skipValue();
+				}
+			}
+			reader.endObject();
 		}
 
-		Map<String, double[]> pricesByHour = extractPricesByHour(includedArray);
-		return createEnergyPriceList(pricesByHour);
+		return createEnergyPriceList(rangeStart, pricesByHour, hourPresent);
 	}
 
-	private Map<String, double[]> extractPricesByHour(JsonArray includedArray) {
-		Map<String, double[]> pricesByHour = new HashMap<>();
+	private void extractPricesByHour(JsonReader reader, long rangeStartSeconds,
+									 double[][] pricesByHour, boolean[] hourPresent) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			processIncludedSeries(reader, rangeStartSeconds, pricesByHour, hourPresent);
+		}
+		reader.endArray();
+	}
 
-		for (JsonElement includedElement : includedArray) {
-			JsonObject includedObject = includedElement.getAsJsonObject();
-			String priceType = includedObject.get("type").getAsString();
+	private void processIncludedSeries(JsonReader reader, long rangeStartSeconds,
+									   double[][] pricesByHour, boolean[] hourPresent) throws IOException {
+		int hourSlots = hourPresent.length;
+		double[] seriesValues = new double[hourSlots];
+		boolean[] seriesPresent = new boolean[hourSlots];
+		String priceType = null;
+
+		reader.beginObject();
+		while (reader.hasNext()) {
+			switch (reader.nextName()) {
+				case "type" -> priceType = reader.nextString();
+				case "attributes" -> processAttributes(reader, rangeStartSeconds, seriesValues, seriesPresent);
+				default -> reader.skipValue();
+			}
+		}
+		reader.endObject();
 
-			// Determine market type index: 0 for PVPC, 1 for SPOT
-			int marketTypeIndex = determineMarketTypeIndex(priceType);
-			if (marketTypeIndex == -1) continue; // Skip other types
+		// Determine market type index: 0 for PVPC, 1 for SPOT
+		int marketTypeIndex = determineMarketTypeIndex(priceType);
+		if (marketTypeIndex == -1) return; // Skip other types
 
-			processPriceValues(includedObject, marketTypeIndex, pricesByHour);
+		for (int hour = 0; hour < hourSlots; hour++) {
+			if (seriesPresent[hour]) {
+				pricesByHour[marketTypeIndex][hour] = seriesValues[hour];
+				hourPresent[hour] = true;
+			}
 		}
-
-		return pricesByHour;
 	}
 
 	private int determineMarketTypeIndex(String priceType) {
-		if (priceType.equals("PVPC")) {
+		if ("PVPC".equals(priceType)) {
 			return 0; // PVPC index
-		} else if (priceType.equals("Precio mercado spot")) {
+		} else if ("Precio mercado spot".equals(priceType)) {
 			return 1; // SPOT index
 		}
 		return -1; // Unknown type
 	}
 
-	private void processPriceValues(JsonObject includedObject, int marketTypeIndex,
-									Map<String, double[]> pricesByHour) {
-		JsonObject attributes = includedObject.getAsJsonObject("attributes");
-		JsonArray values = attributes.getAsJsonArray("values");
-
-		for (JsonElement valueElement : values) {
-			JsonObject valueObject = valueElement.getAsJsonObject();
-			String datetime = valueObject.get("datetime").getAsString();
-			double price = valueObject.get("value").getAsDouble();
-
-			storePriceInMap(datetime, price, marketTypeIndex, pricesByHour);
+	private void processAttributes(JsonReader reader, long rangeStartSeconds,
+								   double[] seriesValues, boolean[] seriesPresent) throws IOException {
+		reader.beginObject();
+		while (reader.hasNext()) {
+			if (reader.nextName().equals("values")) {
+				processPriceValues(reader, rangeStartSeconds, seriesValues, seriesPresent);
+			} else {
+				reader.skipValue();
+			}
 		}
+		reader.endObject();
 	}
 
-	private void storePriceInMap(String datetime, double price, int marketTypeIndex,
-								 Map<String, double[]> pricesByHour) {
-		if (!pricesByHour.containsKey(datetime)) {
-			pricesByHour.put(datetime, new double[2]); // [PVPC, SPOT]
+	private void processPriceValues(JsonReader reader, long rangeStartSeconds,
+									double[] seriesValues, boolean[] seriesPresent) throws IOException {
+		reader.beginArray();
+		while (reader.hasNext()) {
+			String datetime = null;
+			double price = 0;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "datetime" -> datetime = reader.nextString();
+					case "value" -> price = reader.nextDouble();
+					default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			storePriceInSlot(datetime, price, rangeStartSeconds, seriesValues, seriesPresent);
 		}
+		reader.endArray();
+	}
 
-		double[] priceArray = pricesByHour.get(datetime);
-		priceArray[marketTypeIndex] = price;
+	private void storePriceInSlot(String datetime, double price, long rangeStartSeconds,
+								  double[] seriesValues, boolean[] seriesPresent) {
+		if (datetime == null) return;
+
+		long epochSeconds = OffsetDateTime.parse(datetime, DateTimeFormatter.ISO_OFFSET_DATE_TIME).toEpochSecond();
+		int hour = (int) Math.floorDiv(epochSeconds - rangeStartSeconds, SECONDS_PER_HOUR);
+		if (hour < 0 || hour >= seriesValues.length) return;
+
+		seriesValues[hour] = price;
+		seriesPresent[hour] = true;
 	}
 
-	private List<EnergyPrice> createEnergyPriceList(Map<String, double[]> pricesByHour) {
-		List<EnergyPrice> prices = new ArrayList<>();
+	private List<EnergyPrice> createEnergyPriceList(Instant rangeStart, double[][] pricesByHour, boolean[] hourPresent) {
+		List<EnergyPrice> prices = new ArrayList<>(hourPresent.length);
 		Instant currentTimestamp = Instant.now();
-		DateTimeFormatter formatter = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
-
-		for (Map.Entry<String, double[]> entry : pricesByHour.entrySet()) {
-			String datetimeStr = entry.getKey();
-			double[] priceValues = entry.getValue();
 
-			Instant priceTimestamp = LocalDateTime.parse(datetimeStr, formatter)
-					.atZone(SPAIN_ZONE_ID)
-					.toInstant();
+		for (int hour = 0; hour < hourPresent.length; hour++) {
+			if (!hourPresent[hour]) continue;
 
 			EnergyPrice energyPrice = new EnergyPrice(
 					currentTimestamp,
-					priceTimestamp,
-					priceValues[0],  // pricePVPC
-					priceValues[1],  // priceSpot
+					rangeStart.plusSeconds(hour * SECONDS_PER_HOUR),
+					pricesByHour[0][hour],  // pricePVPC
+					pricesByHour[1][hour],  // priceSpot
 					SOURCE_SYSTEM
 			);
 
@@ -193,4 +304,4 @@ public class REEEnergyProvider implements EnergyPricesProvider {
 
 		return prices;
 	}
-}
\ No newline at end of file
+}
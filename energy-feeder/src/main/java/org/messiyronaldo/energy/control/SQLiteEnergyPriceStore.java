@@ -1,6 +1,8 @@
 package org.messiyronaldo.energy.control;
 
 import org.messiyronaldo.energy.model.EnergyPrice;
+import org.messiyronaldo.energy.utils.SQLiteConnectionPool;
+import org.messiyronaldo.energy.utils.SQLiteConnectionPool.PooledConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,34 +19,31 @@ public class SQLiteEnergyPriceStore implements EnergyPricesStore {
 
 	@Override
 	public void saveEnergyPrice(EnergyPrice energyPrice) {
-		try (Connection conn = getConnection()) {
-			String sql = "INSERT INTO energy_prices (ts, price_timestamp, price_pvpc, price_spot, ss) " +
-					"VALUES (?, ?, ?, ?, ?)";
-			try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-				stmt.setString(1, Instant.now().toString());
-				stmt.setString(2, energyPrice.getTs().toString());
-				stmt.setDouble(3, energyPrice.getPricePVPC());
-				stmt.setDouble(4, energyPrice.getPriceSpot());
-				stmt.setString(5, energyPrice.getSs());
-				stmt.executeUpdate();
-			}
+		try (PooledConnection conn = connectionPool.acquire()) {
+			PreparedStatement stmt = conn.prepare(createInsertSql());
+			stmt.setString(1, Instant.now().toString());
+			stmt.setString(2, energyPrice.getTs().toString());
+			stmt.setDouble(3, energyPrice.getPricePVPC());
+			stmt.setDouble(4, energyPrice.getPriceSpot());
+			stmt.setString(5, energyPrice.getSs());
+			stmt.executeUpdate();
 		} catch (SQLException e) {
 			logger.error("Failed to save energy price: {}", e.getMessage(), e);
 			throw new RuntimeException("Failed to save energy price", e);
 		}
 	}
 
-	private final String dbPath;
+	private final SQLiteConnectionPool connectionPool;
 
 	public SQLiteEnergyPriceStore(String dbPath) {
-		this.dbPath = dbPath;
+		this.connectionPool = new SQLiteConnectionPool(dbPath);
 		initializeDatabase();
 		logger.info("SQLite energy price store initialized with database: {}", dbPath);
 	}
 
 	private void initializeDatabase() {
-		try (Connection conn = getConnection()) {
-			createTables(conn);
+		try (PooledConnection conn = connectionPool.acquire()) {
+			createTables(conn.connection());
 			logger.debug("Database tables initialized successfully");
 		} catch (SQLException e) {
 			logger.error("Failed to initialize database: {}", e.getMessage(), e);
@@ -70,23 +69,28 @@ public class SQLiteEnergyPriceStore implements EnergyPricesStore {
 				")";
 	}
 
-	private Connection getConnection() throws SQLException {
-		try {
-			Class.forName("org.sqlite.JDBC");
-			return DriverManager.getConnection("jdbc:sqlite:" + dbPath);
-		} catch (ClassNotFoundException e) {
-			logger.error("SQLite driver not found: {}", e.getMessage(), e);
-			throw new SQLException("SQLite driver not found", e);
-		}
+	public void close() {
+		connectionPool.close();
 	}
 
-	private Map<String, double[]> getExistingPriceMap(Connection conn) throws SQLException {
+	private Map<String, double[]> getExistingPriceMap(PooledConnection conn, List<EnergyPrice> prices)
+			throws SQLException {
 		Map<String, double[]> priceMap = new HashMap<>();
-		String sql = "SELECT price_timestamp, price_pvpc, price_spot FROM energy_prices";
+		String sql = "SELECT price_timestamp, price_pvpc, price_spot FROM energy_prices " +
+				"WHERE price_timestamp BETWEEN ? AND ?";
 
-		try (PreparedStatement pstmt = conn.prepareStatement(sql);
-			 ResultSet rs = pstmt.executeQuery()) {
+		Instant first = prices.get(0).getPriceTimestamp();
+		Instant last = first;
+		for (EnergyPrice price : prices) {
+			if (price.getPriceTimestamp().isBefore(first)) first = price.getPriceTimestamp();
+			if (price.getPriceTimestamp().isAfter(last)) last = price.getPriceTimestamp();
+		}
 
+		PreparedStatement pstmt = conn.prepare(sql);
+		pstmt.setString(1, first.toString());
+		pstmt.setString(2, last.toString());
+
+		try (ResultSet rs = pstmt.executeQuery()) {
 			while (rs.next()) {
 				String timestamp = rs.getString("price_timestamp");
 				double pvpc = rs.getDouble("price_pvpc");
@@ -106,7 +110,7 @@ public class SQLiteEnergyPriceStore implements EnergyPricesStore {
 			return;
 		}
 
-		try (Connection conn = getConnection()) {
+		try (PooledConnection conn = connectionPool.acquire()) {
 			processPriceUpdates(conn, prices);
 		} catch (SQLException e) {
 			logger.error("Failed to save energy prices: {}", e.getMessage(), e);
@@ -117,34 +121,30 @@ public class SQLiteEnergyPriceStore implements EnergyPricesStore {
 		return prices == null || prices.isEmpty();
 	}
 
-	private void processPriceUpdates(Connection conn, List<EnergyPrice> prices) throws SQLException {
-		conn.setAutoCommit(false);
+	private void processPriceUpdates(PooledConnection conn, List<EnergyPrice> prices) throws SQLException {
+		conn.connection().setAutoCommit(false);
 
 		try {
-			Map<String, double[]> existingPrices = getExistingPriceMap(conn);
+			Map<String, double[]> existingPrices = getExistingPriceMap(conn, prices);
 			int[] counts = executeUpdates(conn, prices, existingPrices);
 
-			conn.commit();
+			conn.connection().commit();
 			logOperationSummary(counts[0], counts[1], counts[2], prices.size());
 		} catch (SQLException e) {
-			conn.rollback();
+			conn.connection().rollback();
 			logger.error("Transaction rolled back due to error: {}", e.getMessage(), e);
 			throw e;
 		} finally {
-			conn.setAutoCommit(true);
+			conn.connection().setAutoCommit(true);
 		}
 	}
 
-	private int[] executeUpdates(Connection conn, List<EnergyPrice> prices,
+	private int[] executeUpdates(PooledConnection conn, List<EnergyPrice> prices,
 								 Map<String, double[]> existingPrices) throws SQLException {
-		String insertSql = createInsertSql();
-		String updateSql = createUpdateSql();
-
-		try (PreparedStatement insertStmt = conn.prepareStatement(insertSql);
-			 PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
+		PreparedStatement insertStmt = conn.prepare(createInsertSql());
+		PreparedStatement updateStmt = conn.prepare(createUpdateSql());
 
-			return processPriceBatch(insertStmt, updateStmt, prices, existingPrices);
-		}
+		return processPriceBatch(insertStmt, updateStmt, prices, existingPrices);
 	}
 
 	private String createInsertSql() {
@@ -229,7 +229,7 @@ public class SQLiteEnergyPriceStore implements EnergyPricesStore {
 	public List<EnergyPrice> getEnergyPrices(Instant startTime, Instant endTime) {
 		List<EnergyPrice> prices = new ArrayList<>();
 
-		try (Connection conn = getConnection()) {
+		try (PooledConnection conn = connectionPool.acquire()) {
 			prices = queryPricesByTimeRange(conn, startTime, endTime);
 			logger.debug("Retrieved {} energy prices for time range: {} to {}",
 				prices.size(), startTime, endTime);
@@ -240,21 +240,20 @@ public class SQLiteEnergyPriceStore implements EnergyPricesStore {
 		return prices;
 	}
 
-	private List<EnergyPrice> queryPricesByTimeRange(Connection conn, Instant startTime, Instant endTime)
+	private List<EnergyPrice> queryPricesByTimeRange(PooledConnection conn, Instant startTime, Instant endTime)
 			throws SQLException {
 		List<EnergyPrice> prices = new ArrayList<>();
 		String sql = "SELECT * FROM energy_prices " +
 				"WHERE price_timestamp >= ? AND price_timestamp <= ? " +
 				"ORDER BY price_timestamp";
 
-		try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-			pstmt.setString(1, startTime.toString());
-			pstmt.setString(2, endTime.toString());
+		PreparedStatement pstmt = conn.prepare(sql);
+		pstmt.setString(1, startTime.toString());
+		pstmt.setString(2, endTime.toString());
 
-			try (ResultSet rs = pstmt.executeQuery()) {
-				while (rs.next()) {
-					prices.add(createPriceFromResultSet(rs));
-				}
+		try (ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				prices.add(createPriceFromResultSet(rs));
 			}
 		}
 
@@ -0,0 +1,75 @@
+package org.messiyronaldo.energy.utils;
+
+import org.messiyronaldo.energy.model.EnergyPrice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+public final class EnergyPriceCodec {
+	public static final String CONTENT_TYPE_PROPERTY = "contentType";
+	public static final String SCHEMA_VERSION_PROPERTY = "schemaVersion";
+	public static final String BINARY_CONTENT_TYPE = "application/vnd.pv-event+binary";
+	public static final byte EVENT_TYPE = 1;
+	public static final byte SCHEMA_VERSION = 1;
+
+	private EnergyPriceCodec() {
+	}
+
+	// Layout shared with the event-store-builder and business-unit2 decoders
+	public static byte[] encode(EnergyPrice price) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+		try (DataOutputStream out = new DataOutputStream(buffer)) {
+			out.writeByte(EVENT_TYPE);
+			out.writeByte(SCHEMA_VERSION);
+			writeInstant(out, price.getTs());
+			writeInstant(out, price.getPriceTimestamp());
+			out.writeDouble(price.getPricePVPC());
+			out.writeDouble(price.getPriceSpot());
+			writeString(out, price.getSs());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to encode energy price", e);
+		}
+		return buffer.toByteArray();
+	}
+
+	public static EnergyPrice decode(byte[] data) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			byte eventType = in.readByte();
+			byte schemaVersion = in.readByte();
+			if (eventType != EVENT_TYPE || schemaVersion != SCHEMA_VERSION) {
+				throw new IllegalArgumentException("Unsupported energy event encoding: type " + eventType + ", version " + schemaVersion);
+			}
+			return new EnergyPrice(readInstant(in), readInstant(in), in.readDouble(), in.readDouble(), readString(in));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decode energy price", e);
+		}
+	}
+
+	private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+		out.writeBoolean(instant != null);
+		if (instant != null) {
+			out.writeLong(instant.getEpochSecond());
+			out.writeInt(instant.getNano());
+		}
+	}
+
+	private static Instant readInstant(DataInputStream in) throws IOException {
+		return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
@@ -0,0 +1,182 @@
+package org.messiyronaldo.energy.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Identical copy lives in the other feeder's utils package; the modules deliberately share no code
+public class SQLiteConnectionPool implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(SQLiteConnectionPool.class);
+	private static final int DEFAULT_POOL_SIZE = 4;
+	private static final long ACQUIRE_TIMEOUT_SECONDS = 30;
+	private static final int BUSY_TIMEOUT_MILLIS = 5000;
+	private static final int CACHE_SIZE_KIB = 8 * 1024;
+	private static final long MMAP_SIZE_BYTES = 64L * 1024 * 1024;
+	private static final int MAX_CACHED_STATEMENTS = 32;
+
+	private final String url;
+	private final BlockingQueue<PooledConnection> idle;
+	// One permit per connection slot, idle or not yet opened; released when a lease ends, even if the connection is discarded
+	private final Semaphore slots;
+	private volatile boolean closed;
+
+	public SQLiteConnectionPool(String databaseFilePath) {
+		this(databaseFilePath, DEFAULT_POOL_SIZE);
+	}
+
+	public SQLiteConnectionPool(String databaseFilePath, int maxSize) {
+		try {
+			Class.forName("org.sqlite.JDBC");
+		} catch (ClassNotFoundException e) {
+			logger.error("SQLite driver not found: {}", e.getMessage(), e);
+			throw new RuntimeException("SQLite driver not found", e);
+		}
+		this.url = "jdbc:sqlite:" + databaseFilePath;
+		this.idle = new ArrayBlockingQueue<>(maxSize);
+		this.slots = new Semaphore(maxSize);
+	}
+
+	public PooledConnection acquire() throws SQLException {
+		checkOpen();
+		try {
+			if (!slots.tryAcquire(ACQUIRE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+				throw new SQLException("Timed out waiting for a database connection to " + url);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+
+		try {
+			checkOpen();
+			PooledConnection pooled = idle.poll();
+			return pooled != null ? pooled : openConnection();
+		} catch (SQLException | RuntimeException e) {
+			slots.release();
+			throw e;
+		}
+	}
+
+	private void checkOpen() throws SQLException {
+		if (closed) {
+			throw new SQLException("Connection pool for " + url + " is closed");
+		}
+	}
+
+	private PooledConnection openConnection() throws SQLException {
+		Connection connection = DriverManager.getConnection(url);
+		try {
+			configure(connection);
+		} catch (SQLException e) {
+			connection.close();
+			throw e;
+		}
+		logger.debug("Opened pooled connection to {}", url);
+		return new PooledConnection(connection);
+	}
+
+	private void configure(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("PRAGMA journal_mode = WAL");
+			statement.execute("PRAGMA synchronous = NORMAL");
+			statement.execute("PRAGMA busy_timeout = " + BUSY_TIMEOUT_MILLIS);
+			statement.execute("PRAGMA cache_size = -" + CACHE_SIZE_KIB);
+			statement.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+		}
+	}
+
+	private void release(PooledConnection pooled) {
+		if (closed || !pooled.resetForReuse() || !idle.offer(pooled)) {
+			pooled.closeQuietly();
+		}
+		slots.release();
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		PooledConnection pooled;
+		while ((pooled = idle.poll()) != null) {
+			pooled.closeQuietly();
+		}
+		logger.debug("Connection pool for {} closed", url);
+	}
+
+	public class PooledConnection implements AutoCloseable {
+		private final Connection connection;
+		// Bounded LRU: stores only pass constant SQL, so eviction never closes a statement still in use
+		private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (size() <= MAX_CACHED_STATEMENTS) return false;
+				try {
+					eldest.getValue().close();
+				} catch (SQLException e) {
+					logger.warn("Failed to close evicted statement on {}: {}", url, e.getMessage());
+				}
+				return true;
+			}
+		};
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+		}
+
+		public Connection connection() {
+			return connection;
+		}
+
+		public PreparedStatement prepare(String sql) throws SQLException {
+			PreparedStatement statement = statements.get(sql);
+			if (statement == null) {
+				statement = connection.prepareStatement(sql);
+				statements.put(sql, statement);
+			}
+			return statement;
+		}
+
+		private boolean resetForReuse() {
+			try {
+				if (!connection.getAutoCommit()) {
+					connection.rollback();
+					connection.setAutoCommit(true);
+				}
+				for (PreparedStatement statement : statements.values()) {
+					statement.clearParameters();
+					statement.clearBatch();
+				}
+				return true;
+			} catch (SQLException e) {
+				logger.warn("Discarding pooled connection to {}: {}", url, e.getMessage());
+				return false;
+			}
+		}
+
+		private void closeQuietly() {
+			try {
+				for (PreparedStatement statement : statements.values()) {
+					statement.close();
+				}
+				connection.close();
+			} catch (SQLException e) {
+				logger.warn("Failed to close pooled connection to {}: {}", url, e.getMessage());
+			}
+		}
+
+		@Override
+		public void close() {
+			release(this);
+		}
+	}
+}
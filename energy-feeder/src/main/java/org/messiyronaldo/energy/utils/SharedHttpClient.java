@@ -0,0 +1,38 @@
+package org.messiyronaldo.energy.utils;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.TimeUnit;
+
+public final class SharedHttpClient {
+	private static final int MAX_REQUESTS = 64;
+	private static final int MAX_REQUESTS_PER_HOST = 16;
+	private static final int MAX_IDLE_CONNECTIONS = 16;
+	private static final long KEEP_ALIVE_MINUTES = 5;
+
+	private SharedHttpClient() {
+	}
+
+	public static OkHttpClient get() {
+		return Holder.CLIENT;
+	}
+
+	private static OkHttpClient create() {
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequests(MAX_REQUESTS);
+		dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+		return new OkHttpClient.Builder()
+				.dispatcher(dispatcher)
+				.connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+				.connectTimeout(10, TimeUnit.SECONDS)
+				.readTimeout(30, TimeUnit.SECONDS)
+				.build();
+	}
+
+	private static class Holder {
+		private static final OkHttpClient CLIENT = create();
+	}
+}
@@ -0,0 +1,103 @@
+package org.messiyronaldo.energy.benchmark;
+
+import org.messiyronaldo.energy.control.SQLiteEnergyPriceStore;
+import org.messiyronaldo.energy.model.EnergyPrice;
+import org.messiyronaldo.energy.utils.SQLiteConnectionPool;
+import org.messiyronaldo.energy.utils.SQLiteConnectionPool.PooledConnection;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SQLiteAccessBenchmark {
+	private static final int STORED_HOURS = 24 * 365;
+	private static final Instant FIRST_HOUR = Instant.parse("2024-01-01T00:00:00Z");
+	private static final String LOOKUP_SQL = "SELECT price_pvpc, price_spot FROM energy_prices WHERE price_timestamp = ?";
+
+	private Path databaseFile;
+	private SQLiteConnectionPool connectionPool;
+	private SQLiteEnergyPriceStore store;
+	private List<EnergyPrice> lastDay;
+
+	@Setup(Level.Trial)
+	public void createDatabase() throws IOException {
+		databaseFile = Files.createTempFile("energy-benchmark", ".db");
+		store = new SQLiteEnergyPriceStore(databaseFile.toString());
+
+		List<EnergyPrice> prices = new ArrayList<>(STORED_HOURS);
+		for (int hour = 0; hour < STORED_HOURS; hour++) {
+			Instant priceTimestamp = FIRST_HOUR.plus(Duration.ofHours(hour));
+			prices.add(new EnergyPrice(Instant.now(), priceTimestamp, 0.1 + hour % 24 * 0.01, 0.05 + hour % 24 * 0.005, "benchmark"));
+		}
+		store.saveEnergyPrices(prices);
+		lastDay = prices.subList(STORED_HOURS - 24, STORED_HOURS);
+
+		connectionPool = new SQLiteConnectionPool(databaseFile.toString());
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteDatabase() throws IOException {
+		connectionPool.close();
+		store.close();
+		Files.deleteIfExists(databaseFile);
+		Files.deleteIfExists(Path.of(databaseFile + "-wal"));
+		Files.deleteIfExists(Path.of(databaseFile + "-shm"));
+	}
+
+	@Benchmark
+	public double perCallConnection() throws SQLException {
+		try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile);
+			 PreparedStatement statement = connection.prepareStatement(LOOKUP_SQL)) {
+			return lookup(statement);
+		}
+	}
+
+	@Benchmark
+	public double pooledConnection() throws SQLException {
+		try (PooledConnection connection = connectionPool.acquire()) {
+			return lookup(connection.prepare(LOOKUP_SQL));
+		}
+	}
+
+	@Benchmark
+	public void upsertDayIntoYearOfHistory() {
+		store.saveEnergyPrices(lastDay);
+	}
+
+	private double lookup(PreparedStatement statement) throws SQLException {
+		int hour = ThreadLocalRandom.current().nextInt(STORED_HOURS);
+		statement.setString(1, FIRST_HOUR.plus(Duration.ofHours(hour)).toString());
+		try (ResultSet results = statement.executeQuery()) {
+			return results.next() ? results.getDouble(1) + results.getDouble(2) : 0;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options options = new OptionsBuilder()
+				.include(SQLiteAccessBenchmark.class.getSimpleName())
+				.build();
+		new Runner(options).run();
+	}
+}
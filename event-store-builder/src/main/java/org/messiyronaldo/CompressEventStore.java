@@ -0,0 +1,24 @@
+package org.messiyronaldo;
+
+import org.messiyronaldo.eventstore.control.EventStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class CompressEventStore {
+	private static final Logger logger = LoggerFactory.getLogger(CompressEventStore.class);
+
+	public static void main(String[] args) {
+		Path directory = args.length > 0 ? Paths.get(args[0]) : Paths.get(System.getProperty("user.dir"), "eventstore");
+		logger.info("Compressing past-day event segments under {}", directory.toAbsolutePath());
+
+		EventStoreManager eventStore = new EventStoreManager(directory);
+		try {
+			eventStore.compressSealedSegments();
+		} finally {
+			eventStore.close();
+		}
+	}
+}
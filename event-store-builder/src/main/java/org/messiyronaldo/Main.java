@@ -1,5 +1,6 @@
 package org.messiyronaldo;
 
+import org.messiyronaldo.eventstore.control.EventBatchWriter;
 import org.messiyronaldo.eventstore.control.EventStore;
 import org.messiyronaldo.eventstore.control.EventStoreManager;
 import org.messiyronaldo.eventstore.control.Subscriber;
@@ -13,26 +14,37 @@ public class Main {
 	private static final String CLIENT_BASE_ID = "MessiyRonaldo";
 	private static final String WEATHER_TOPIC = "prediction.Weather";
 	private static final String ENERGY_TOPIC = "prediction.Energy";
+	private static final int WRITER_QUEUE_CAPACITY = 10_000;
+	private static final int WRITER_BATCH_SIZE = 500;
+	private static final long WRITER_BATCH_DELAY_MILLIS = 200;
+	private static final boolean COMPRESS_SEALED_SEGMENTS = false;
 
+	private static EventStore eventStore;
+	private static EventBatchWriter batchWriter;
 	private static Subscriber weatherSubscriber;
 	private static Subscriber energySubscriber;
 
 	public static void main(String[] args) {
 		logger.info("Starting Event Store Builder...");
 
-		EventStore eventStoreManager = new EventStoreManager();
+		EventStoreManager eventStoreManager = new EventStoreManager(COMPRESS_SEALED_SEGMENTS);
+		eventStoreManager.start();
+		eventStore = eventStoreManager;
+		batchWriter = new EventBatchWriter(
+				eventStore, WRITER_QUEUE_CAPACITY, WRITER_BATCH_SIZE, WRITER_BATCH_DELAY_MILLIS);
+		batchWriter.start();
 
 		weatherSubscriber = new SubscriberActiveMQ(
 				BROKER_URL,
 				CLIENT_BASE_ID + "_Weather",
 				CLIENT_BASE_ID + "_WeatherSub",
-				eventStoreManager);
+				batchWriter);
 
 		energySubscriber = new SubscriberActiveMQ(
 				BROKER_URL,
 				CLIENT_BASE_ID + "_Energy",
 				CLIENT_BASE_ID + "_EnergySub",
-				eventStoreManager);
+				batchWriter);
 
 		weatherSubscriber.start();
 		weatherSubscriber.subscribe(WEATHER_TOPIC);
@@ -52,6 +64,8 @@ public class Main {
 			logger.info("Shutting down Event Store Builder...");
 			if (weatherSubscriber != null) weatherSubscriber.close();
 			if (energySubscriber != null) energySubscriber.close();
+			if (batchWriter != null) batchWriter.close();
+			if (eventStore != null) eventStore.close();
 		}));
 	}
 
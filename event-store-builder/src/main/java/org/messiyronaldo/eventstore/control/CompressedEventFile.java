@@ -0,0 +1,248 @@
+package org.messiyronaldo.eventstore.control;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+class CompressedEventFile implements AutoCloseable {
+	static final String EXTENSION = ".z";
+	private static final int MAGIC = 0x45565A31;
+	private static final byte VERSION = 1;
+	private static final int BLOCK_SIZE = 64 * 1024;
+	private static final int HEADER_BYTES = 9;
+	private static final int TRAILER_BYTES = 20;
+	private static final int BLOCK_ENTRY_BYTES = 24;
+	private static final byte NEWLINE = '\n';
+
+	private final Path file;
+	private final FileChannel channel;
+	private final long logicalSize;
+	private final List<Block> blocks;
+	private int cachedBlock = -1;
+	private byte[] cachedData;
+
+	private CompressedEventFile(Path file, FileChannel channel, long logicalSize, List<Block> blocks) {
+		this.file = file;
+		this.channel = channel;
+		this.logicalSize = logicalSize;
+		this.blocks = blocks;
+	}
+
+	static Path compressedFileOf(Path eventsFile) {
+		return eventsFile.resolveSibling(eventsFile.getFileName() + EXTENSION);
+	}
+
+	static void write(FileChannel source, long size, Path target) throws IOException {
+		Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+		List<Block> blocks = new ArrayList<>();
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+		try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			writeFully(out, ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).put(VERSION).putInt(BLOCK_SIZE).flip());
+
+			long position = 0;
+			while (position < size) {
+				byte[] block = readLineAlignedBlock(source, position, size);
+				byte[] compressed = deflate(deflater, block);
+				blocks.add(new Block(position, out.position(), compressed.length, block.length));
+				writeFully(out, ByteBuffer.wrap(compressed));
+				position += block.length;
+			}
+
+			long indexPosition = out.position();
+			ByteBuffer index = ByteBuffer.allocate(4 + blocks.size() * BLOCK_ENTRY_BYTES + TRAILER_BYTES);
+			index.putInt(blocks.size());
+			for (Block block : blocks) {
+				index.putLong(block.logicalOffset()).putLong(block.filePosition())
+						.putInt(block.compressedLength()).putInt(block.logicalLength());
+			}
+			index.putLong(size).putLong(indexPosition).putInt(MAGIC);
+			writeFully(out, index.flip());
+			out.force(true);
+		} finally {
+			deflater.end();
+		}
+		Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static byte[] readLineAlignedBlock(FileChannel source, long position, long size) throws IOException {
+		int length = (int) Math.min(BLOCK_SIZE, size - position);
+		while (true) {
+			ByteBuffer buffer = ByteBuffer.allocate(length);
+			readFully(source, buffer, position);
+			byte[] data = buffer.array();
+			if (position + length == size) {
+				return data;
+			}
+			for (int i = length - 1; i >= 0; i--) {
+				if (data[i] == NEWLINE) {
+					return i == length - 1 ? data : Arrays.copyOf(data, i + 1);
+				}
+			}
+			length = (int) Math.min((long) length + BLOCK_SIZE, size - position);
+		}
+	}
+
+	private static byte[] deflate(Deflater deflater, byte[] data) {
+		deflater.reset();
+		deflater.setInput(data);
+		deflater.finish();
+		byte[] buffer = new byte[Math.max(64, data.length / 2)];
+		int length = 0;
+		while (!deflater.finished()) {
+			if (length == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+			}
+			length += deflater.deflate(buffer, length, buffer.length - length);
+		}
+		return Arrays.copyOf(buffer, length);
+	}
+
+	static CompressedEventFile open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			long fileSize = channel.size();
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+			readFully(channel, trailer, fileSize - TRAILER_BYTES);
+			trailer.flip();
+			long logicalSize = trailer.getLong();
+			long indexPosition = trailer.getLong();
+			if (trailer.getInt() != MAGIC) {
+				throw new IOException("Not a compressed event file: " + file);
+			}
+
+			ByteBuffer index = ByteBuffer.allocate(Math.toIntExact(fileSize - TRAILER_BYTES - indexPosition));
+			readFully(channel, index, indexPosition);
+			index.flip();
+			int blockCount = index.getInt();
+			List<Block> blocks = new ArrayList<>(blockCount);
+			for (int i = 0; i < blockCount; i++) {
+				blocks.add(new Block(index.getLong(), index.getLong(), index.getInt(), index.getInt()));
+			}
+			return new CompressedEventFile(file, channel, logicalSize, blocks);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	static long logicalSizeOf(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+			readFully(channel, trailer, channel.size() - TRAILER_BYTES);
+			return trailer.flip().getLong();
+		}
+	}
+
+	long logicalSize() {
+		return logicalSize;
+	}
+
+	synchronized byte[] read(long offset, int length) throws IOException {
+		byte[] result = new byte[length];
+		int copied = 0;
+		int blockIndex = findBlock(offset);
+
+		while (copied < length) {
+			if (blockIndex >= blocks.size()) {
+				throw new IOException("Unexpected end of compressed segment " + file);
+			}
+			Block block = blocks.get(blockIndex);
+			byte[] data = decodeBlock(blockIndex);
+			int start = (int) (offset + copied - block.logicalOffset());
+			int count = Math.min(length - copied, data.length - start);
+			System.arraycopy(data, start, result, copied, count);
+			copied += count;
+			blockIndex++;
+		}
+		return result;
+	}
+
+	void decompressTo(Path target) throws IOException {
+		Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+		try (FileChannel out = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			for (int i = 0; i < blocks.size(); i++) {
+				writeFully(out, ByteBuffer.wrap(decodeBlock(i)));
+			}
+			out.force(true);
+		}
+		Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private int findBlock(long offset) {
+		int low = 0;
+		int high = blocks.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (blocks.get(mid).logicalOffset() <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private synchronized byte[] decodeBlock(int blockIndex) throws IOException {
+		if (blockIndex == cachedBlock) {
+			return cachedData;
+		}
+
+		Block block = blocks.get(blockIndex);
+		ByteBuffer compressed = ByteBuffer.allocate(block.compressedLength());
+		readFully(channel, compressed, block.filePosition());
+
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed.array());
+			byte[] data = new byte[block.logicalLength()];
+			int length = 0;
+			while (length < data.length && !inflater.finished()) {
+				length += inflater.inflate(data, length, data.length - length);
+			}
+			cachedBlock = blockIndex;
+			cachedData = data;
+			return data;
+		} catch (DataFormatException e) {
+			throw new IOException("Corrupt block " + blockIndex + " in " + file, e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of file");
+			}
+			position += read;
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private record Block(long logicalOffset, long filePosition, int compressedLength, int logicalLength) {
+	}
+}
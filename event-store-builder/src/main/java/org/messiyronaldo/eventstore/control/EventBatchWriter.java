@@ -0,0 +1,134 @@
+package org.messiyronaldo.eventstore.control;
+
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class EventBatchWriter {
+	private static final Logger logger = LoggerFactory.getLogger(EventBatchWriter.class);
+	private static final long IDLE_POLL_MILLIS = 500;
+
+	private final EventStore eventStore;
+	private final BlockingQueue<PendingEvent> queue;
+	private final int maxBatchSize;
+	private final long maxBatchDelayMillis;
+	private Thread writerThread;
+	private volatile boolean running = false;
+
+	public EventBatchWriter(EventStore eventStore, int queueCapacity, int maxBatchSize, long maxBatchDelayMillis) {
+		this.eventStore = eventStore;
+		this.queue = new ArrayBlockingQueue<>(queueCapacity);
+		this.maxBatchSize = maxBatchSize;
+		this.maxBatchDelayMillis = maxBatchDelayMillis;
+		logger.info("Event batch writer initialized (queue: {}, batch: {} events / {} ms)",
+				queueCapacity, maxBatchSize, maxBatchDelayMillis);
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void start() {
+		if (running) {
+			logger.warn("Event batch writer is already started");
+			return;
+		}
+		running = true;
+		writerThread = new Thread(this::runWriterLoop, "EventBatchWriter");
+		writerThread.start();
+	}
+
+	public void submit(JsonObject event, String topicName, Consumer<Boolean> completion) throws InterruptedException {
+		if (!running) {
+			throw new IllegalStateException("Event batch writer is not started");
+		}
+		queue.put(new PendingEvent(event, topicName, completion));
+	}
+
+	private void runWriterLoop() {
+		while (running || !queue.isEmpty()) {
+			try {
+				List<PendingEvent> batch = drainBatch();
+				if (!batch.isEmpty()) {
+					writeBatch(batch);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.warn("Event batch writer interrupted with {} pending events", queue.size());
+				return;
+			}
+		}
+	}
+
+	private List<PendingEvent> drainBatch() throws InterruptedException {
+		List<PendingEvent> batch = new ArrayList<>(maxBatchSize);
+		PendingEvent first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+		if (first == null) {
+			return batch;
+		}
+		batch.add(first);
+
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMillis);
+		while (batch.size() < maxBatchSize) {
+			queue.drainTo(batch, maxBatchSize - batch.size());
+			long remaining = deadline - System.nanoTime();
+			if (batch.size() >= maxBatchSize || remaining <= 0) {
+				break;
+			}
+			PendingEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				break;
+			}
+			batch.add(next);
+		}
+		return batch;
+	}
+
+	private void writeBatch(List<PendingEvent> batch) {
+		List<PendingEvent> stored = new ArrayList<>(batch.size());
+		for (PendingEvent event : batch) {
+			try {
+				eventStore.storeEvent(event.event(), event.topicName());
+				stored.add(event);
+			} catch (RuntimeException e) {
+				logger.error("Event from {} not stored: {}", event.topicName(), e.getMessage(), e);
+				event.completion().accept(false);
+			}
+		}
+
+		try {
+			eventStore.flush();
+		} catch (RuntimeException e) {
+			logger.error("Batch of {} events not durable: {}", stored.size(), e.getMessage(), e);
+			stored.forEach(event -> event.completion().accept(false));
+			return;
+		}
+
+		stored.forEach(event -> event.completion().accept(true));
+		logger.debug("Batch of {} events stored", stored.size());
+	}
+
+	public void close() {
+		if (!running) {
+			return;
+		}
+		running = false;
+		try {
+			writerThread.join();
+			logger.info("Event batch writer closed");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("Interrupted while closing event batch writer");
+		}
+	}
+
+	private record PendingEvent(JsonObject event, String topicName, Consumer<Boolean> completion) {
+	}
+}
@@ -0,0 +1,391 @@
+package org.messiyronaldo.eventstore.control;
+
+import org.messiyronaldo.eventstore.utils.EventFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+class EventSegment {
+	private static final Logger logger = LoggerFactory.getLogger(EventSegment.class);
+	private static final byte NEWLINE = '\n';
+	private static final int INDEX_MAGIC = 0x45494458;
+	private static final byte INDEX_VERSION = 3;
+
+	private final Path file;
+	private final Path indexFile;
+	private final Path compressedFile;
+	private final Function<String, Attributes> attributesExtractor;
+	private final Map<String, Entry> index = new HashMap<>();
+	private FileChannel channel;
+	private CompressedEventFile compressed;
+	private long size;
+	private int supersededCount;
+	private long minEventTime = Long.MAX_VALUE;
+	private long maxEventTime = Long.MIN_VALUE;
+	private long lastWriteMillis;
+	private boolean dirty;
+
+	EventSegment(Path file, Function<String, Attributes> attributesExtractor) throws IOException {
+		this.file = file;
+		this.indexFile = indexFileOf(file);
+		this.compressedFile = CompressedEventFile.compressedFileOf(file);
+		this.attributesExtractor = attributesExtractor;
+		openStorage();
+		rebuildIndex();
+		this.lastWriteMillis = System.currentTimeMillis();
+	}
+
+	static Path indexFileOf(Path file) {
+		return file.resolveSibling(file.getFileName() + ".idx");
+	}
+
+	static long storedSize(Path file) throws IOException {
+		return Files.exists(file) ? Files.size(file) : CompressedEventFile.logicalSizeOf(CompressedEventFile.compressedFileOf(file));
+	}
+
+	private FileChannel openChannel(Path path) throws IOException {
+		return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	private void openStorage() throws IOException {
+		if (Files.exists(file) || !Files.exists(compressedFile)) {
+			if (Files.deleteIfExists(compressedFile)) {
+				logger.warn("Discarded stale compressed copy of {}", file);
+			}
+			channel = openChannel(file);
+		} else {
+			compressed = CompressedEventFile.open(compressedFile);
+		}
+	}
+
+	private void rebuildIndex() throws IOException {
+		long fileSize = compressed != null ? compressed.logicalSize() : channel.size();
+		long indexedSize = loadIndexFile(fileSize);
+		byte[] data = readRange(indexedSize, Math.toIntExact(fileSize - indexedSize)).array();
+
+		int lineStart = 0;
+		for (int i = 0; i < data.length; i++) {
+			if (data[i] == NEWLINE) {
+				indexLine(data, lineStart, i - lineStart, indexedSize);
+				lineStart = i + 1;
+			}
+		}
+
+		if (lineStart < data.length && compressed == null) {
+			logger.warn("Incomplete trailing line in {} ignored", file);
+			channel.write(ByteBuffer.wrap(new byte[]{NEWLINE}), fileSize);
+			size = fileSize + 1;
+		} else {
+			size = fileSize;
+		}
+
+		logger.debug("Segment {} opened with {} events ({} superseded, {} bytes scanned)",
+				file, index.size(), supersededCount, data.length);
+	}
+
+	private void indexLine(byte[] data, int offset, int length, long baseOffset) {
+		if (length == 0) return;
+
+		String line = new String(data, offset, length, StandardCharsets.UTF_8);
+		try {
+			putEntry(attributesExtractor.apply(line), baseOffset + offset, length);
+		} catch (RuntimeException e) {
+			logger.warn("Unreadable event at offset {} in {}: {}", baseOffset + offset, file, e.getMessage());
+			supersededCount++;
+		}
+	}
+
+	private void putEntry(Attributes attributes, long offset, int length) {
+		Entry entry = new Entry(offset, length, attributes.eventTime(), attributes.location(), attributes.fingerprint());
+		if (index.put(attributes.key(), entry) != null) {
+			supersededCount++;
+		}
+		minEventTime = Math.min(minEventTime, entry.eventTime());
+		maxEventTime = Math.max(maxEventTime, entry.eventTime());
+	}
+
+	private long loadIndexFile(long fileSize) {
+		if (!Files.exists(indexFile)) {
+			return 0;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readByte() != INDEX_VERSION) {
+				throw new IOException("unknown index format");
+			}
+			long indexedSize = in.readLong();
+			if (indexedSize > fileSize) {
+				throw new IOException("index covers " + indexedSize + " bytes but segment has " + fileSize);
+			}
+			int superseded = in.readInt();
+			in.readLong();
+			in.readLong();
+
+			int entryCount = in.readInt();
+			for (int i = 0; i < entryCount; i++) {
+				String key = in.readUTF();
+				long eventTime = in.readLong();
+				String location = in.readUTF();
+				EventFingerprint fingerprint = new EventFingerprint(in.readLong(), in.readLong());
+				long offset = in.readLong();
+				int length = in.readInt();
+				putEntry(new Attributes(key, eventTime, location.isEmpty() ? null : location, fingerprint), offset, length);
+			}
+			supersededCount = superseded;
+			return indexedSize;
+		} catch (IOException e) {
+			logger.warn("Ignoring index {} and scanning segment: {}", indexFile, e.getMessage());
+			index.clear();
+			supersededCount = 0;
+			minEventTime = Long.MAX_VALUE;
+			maxEventTime = Long.MIN_VALUE;
+			return 0;
+		}
+	}
+
+	private void writeIndexFile() throws IOException {
+		Path tempFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+			out.writeInt(INDEX_MAGIC);
+			out.writeByte(INDEX_VERSION);
+			out.writeLong(size);
+			out.writeInt(supersededCount);
+			out.writeLong(minEventTime);
+			out.writeLong(maxEventTime);
+			out.writeInt(index.size());
+			for (Map.Entry<String, Entry> indexEntry : index.entrySet()) {
+				Entry entry = indexEntry.getValue();
+				out.writeUTF(indexEntry.getKey());
+				out.writeLong(entry.eventTime());
+				out.writeUTF(entry.location() != null ? entry.location() : "");
+				out.writeLong(entry.fingerprint().high());
+				out.writeLong(entry.fingerprint().low());
+				out.writeLong(entry.offset());
+				out.writeInt(entry.length());
+			}
+		}
+		Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	static boolean mayContain(Path file, long fromEventTime, long toEventTime) {
+		Path indexFile = indexFileOf(file);
+		if (!Files.exists(indexFile)) {
+			return true;
+		}
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+			if (in.readInt() != INDEX_MAGIC || in.readByte() != INDEX_VERSION) {
+				return true;
+			}
+			long indexedSize = in.readLong();
+			in.readInt();
+			long min = in.readLong();
+			long max = in.readLong();
+			return indexedSize != storedSize(file) || (max >= fromEventTime && min < toEventTime);
+		} catch (IOException e) {
+			return true;
+		}
+	}
+
+	synchronized EventFingerprint fingerprintOf(String key) {
+		Entry entry = index.get(key);
+		return entry != null ? entry.fingerprint() : null;
+	}
+
+	synchronized List<StoredEvent> query(long fromEventTime, long toEventTime, String location) throws IOException {
+		List<StoredEvent> events = new ArrayList<>();
+		if (index.isEmpty() || maxEventTime < fromEventTime || minEventTime >= toEventTime) {
+			return events;
+		}
+
+		List<Entry> matching = new ArrayList<>();
+		for (Entry entry : index.values()) {
+			if (entry.eventTime() >= fromEventTime && entry.eventTime() < toEventTime
+					&& (location == null || location.equals(entry.location()))) {
+				matching.add(entry);
+			}
+		}
+		matching.sort(Comparator.comparingLong(Entry::offset));
+
+		int runStart = 0;
+		while (runStart < matching.size()) {
+			int runEnd = runStart + 1;
+			while (runEnd < matching.size()
+					&& matching.get(runEnd).offset() == matching.get(runEnd - 1).offset() + matching.get(runEnd - 1).length() + 1) {
+				runEnd++;
+			}
+
+			Entry first = matching.get(runStart);
+			Entry last = matching.get(runEnd - 1);
+			ByteBuffer run = readRange(first.offset(), Math.toIntExact(last.offset() + last.length() - first.offset()));
+			for (int i = runStart; i < runEnd; i++) {
+				Entry entry = matching.get(i);
+				String line = new String(run.array(), Math.toIntExact(entry.offset() - first.offset()),
+						entry.length(), StandardCharsets.UTF_8);
+				events.add(new StoredEvent(entry.eventTime(), line));
+			}
+			runStart = runEnd;
+		}
+		return events;
+	}
+
+	private ByteBuffer readRange(long offset, int length) throws IOException {
+		if (compressed != null) {
+			return ByteBuffer.wrap(compressed.read(offset, length));
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		long position = offset;
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new IOException("Unexpected end of segment " + file);
+			}
+			position += read;
+		}
+		return buffer;
+	}
+
+	synchronized void append(Attributes attributes, String line) throws IOException {
+		if (compressed != null) {
+			unseal();
+		}
+
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 1).put(bytes).put(NEWLINE).flip();
+
+		long position = size;
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+
+		putEntry(attributes, size, bytes.length);
+		size = position;
+		lastWriteMillis = System.currentTimeMillis();
+		dirty = true;
+	}
+
+	synchronized void force() throws IOException {
+		if (dirty) {
+			channel.force(false);
+			dirty = false;
+		}
+	}
+
+	synchronized boolean needsCompaction(double supersededRatio) {
+		int total = index.size() + supersededCount;
+		return supersededCount > 0 && supersededCount >= total * supersededRatio;
+	}
+
+	synchronized boolean isIdle(long idleMillis) {
+		return System.currentTimeMillis() - lastWriteMillis >= idleMillis;
+	}
+
+	synchronized void compact() throws IOException {
+		if (supersededCount == 0 || compressed != null) {
+			return;
+		}
+
+		List<Map.Entry<String, Entry>> liveEntries = new ArrayList<>(index.entrySet());
+		liveEntries.sort(Comparator.comparingLong(e -> e.getValue().offset()));
+
+		Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+		Map<String, Entry> compactedIndex = new HashMap<>();
+		long position = 0;
+
+		try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			for (Map.Entry<String, Entry> liveEntry : liveEntries) {
+				Entry entry = liveEntry.getValue();
+				long transferred = 0;
+				while (transferred < entry.length() + 1) {
+					transferred += channel.transferTo(entry.offset() + transferred,
+							entry.length() + 1 - transferred, target);
+				}
+				compactedIndex.put(liveEntry.getKey(), entry.movedTo(position));
+				position += entry.length() + 1;
+			}
+			target.force(true);
+		}
+
+		channel.close();
+		Files.deleteIfExists(indexFile);
+		Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		channel = openChannel(file);
+
+		logger.info("Compacted {}: removed {} superseded events", file, supersededCount);
+		index.clear();
+		index.putAll(compactedIndex);
+		size = position;
+		supersededCount = 0;
+		dirty = false;
+		writeIndexFile();
+	}
+
+	synchronized boolean isSealed() {
+		return compressed != null;
+	}
+
+	synchronized void seal() throws IOException {
+		if (compressed != null) {
+			return;
+		}
+
+		force();
+		CompressedEventFile.write(channel, size, compressedFile);
+		channel.close();
+		channel = null;
+		compressed = CompressedEventFile.open(compressedFile);
+		Files.delete(file);
+		logger.info("Sealed {} into {} ({} -> {} bytes)", file, compressedFile.getFileName(), size, Files.size(compressedFile));
+	}
+
+	private void unseal() throws IOException {
+		compressed.decompressTo(file);
+		compressed.close();
+		compressed = null;
+		Files.delete(compressedFile);
+		channel = openChannel(file);
+		logger.info("Reopened sealed segment {} for writing", file);
+	}
+
+	synchronized void close() throws IOException {
+		if (compressed != null) {
+			compressed.close();
+		} else {
+			force();
+			channel.close();
+		}
+		writeIndexFile();
+	}
+
+	record Attributes(String key, long eventTime, String location, EventFingerprint fingerprint) {
+	}
+
+	record StoredEvent(long eventTime, String json) {
+	}
+
+	private record Entry(long offset, int length, long eventTime, String location, EventFingerprint fingerprint) {
+		Entry movedTo(long newOffset) {
+			return new Entry(newOffset, length, eventTime, location, fingerprint);
+		}
+	}
+}
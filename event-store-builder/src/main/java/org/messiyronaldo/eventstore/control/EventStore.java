@@ -1,5 +1,14 @@
 package org.messiyronaldo.eventstore.control;
 
+import com.google.gson.JsonObject;
+
+import java.time.Instant;
+import java.util.List;
+
 public interface EventStore {
 	void storeEventToFile(String json, String topicName);
+	void storeEvent(JsonObject event, String topicName);
+	List<String> read(String topicName, String sourceSystem, Instant fromEventTime, Instant toEventTime);
+	void flush();
+	void close();
 }
@@ -3,80 +3,279 @@ package org.messiyronaldo.eventstore.control;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import org.messiyronaldo.eventstore.utils.EventFingerprint;
 import org.messiyronaldo.eventstore.utils.InstantTypeAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class EventStoreManager implements EventStore {
 	private static final Logger logger = LoggerFactory.getLogger(EventStoreManager.class);
+	private static final String EVENTSTORE_DIRECTORY = "eventstore";
+	private static final long COMPACTION_INTERVAL_MINUTES = 10;
+	private static final double COMPACTION_SUPERSEDED_RATIO = 0.25;
+	private static final long SEGMENT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+	private static final String EVENTS_EXTENSION = ".events";
+	private static final DateTimeFormatter FILE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
 	private final Gson gson;
+	private final Path baseDirectory;
+	private final Map<Path, EventSegment> segments = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService compactionExecutor;
+	private final boolean compressSealedSegments;
 
 	public EventStoreManager() {
+		this(false);
+	}
+
+	public EventStoreManager(boolean compressSealedSegments) {
+		this(Paths.get(System.getProperty("user.dir"), EVENTSTORE_DIRECTORY), compressSealedSegments);
+	}
+
+	public EventStoreManager(Path baseDirectory) {
+		this(baseDirectory, false);
+	}
+
+	public EventStoreManager(Path baseDirectory, boolean compressSealedSegments) {
+		this.baseDirectory = baseDirectory;
+		this.compressSealedSegments = compressSealedSegments;
 		this.gson = new GsonBuilder()
 				.registerTypeAdapter(Instant.class, new InstantTypeAdapter())
 				.create();
-		logger.info("Event store manager initialized");
+		this.compactionExecutor = createCompactionExecutor();
+		logger.info("Event store manager initialized at {} (compression of sealed segments: {})",
+				baseDirectory.toAbsolutePath(), compressSealedSegments);
+	}
+
+	private ScheduledExecutorService createCompactionExecutor() {
+		return Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "EventStoreCompaction");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	public void start() {
+		compactionExecutor.scheduleWithFixedDelay(this::compact,
+				COMPACTION_INTERVAL_MINUTES, COMPACTION_INTERVAL_MINUTES, TimeUnit.MINUTES);
+		if (compressSealedSegments) {
+			compactionExecutor.execute(this::compressSealedSegments);
+		}
 	}
 
 	@Override
 	public void storeEventToFile(String json, String topicName) {
+		storeEvent(gson.fromJson(json, JsonObject.class), topicName);
+	}
+
+	@Override
+	public void storeEvent(JsonObject jsonObject, String topicName) {
 		try {
-			JsonObject jsonObject = gson.fromJson(json, JsonObject.class);
 			String formattedTimestamp = getEventDateFromTs(jsonObject);
-			File directory = createDirectory(jsonObject, topicName);
-			File file = new File(directory, formattedTimestamp + ".events");
-
-			// Read all existing events
-			java.util.List<JsonObject> events = new java.util.ArrayList<>();
-			if (file.exists()) {
-				try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-					String line;
-					while ((line = reader.readLine()) != null) {
-						JsonObject existingEvent = gson.fromJson(line, JsonObject.class);
-						events.add(existingEvent);
-					}
-				}
+			Path directory = createDirectory(jsonObject, topicName);
+			Path file = directory.resolve(formattedTimestamp + EVENTS_EXTENSION);
+			EventSegment.Attributes attributes = getEventAttributes(jsonObject, topicName);
+
+			segments.compute(file, (path, segment) -> {
+				EventSegment target = segment != null ? segment : openSegment(path, topicName);
+				appendIfChanged(target, path, attributes, jsonObject);
+				return target;
+			});
+		} catch (IOException | UncheckedIOException e) {
+			throw new RuntimeException("Failed to store event", e);
+		}
+	}
+
+	private EventSegment openSegment(Path file, String topicName) {
+		try {
+			return new EventSegment(file, line -> getEventAttributes(gson.fromJson(line, JsonObject.class), topicName));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to open event segment " + file, e);
+		}
+	}
+
+	private void appendIfChanged(EventSegment segment, Path file, EventSegment.Attributes attributes, JsonObject jsonObject) {
+		try {
+			EventFingerprint existingFingerprint = segment.fingerprintOf(attributes.key());
+			if (attributes.fingerprint().equals(existingFingerprint)) {
+				logger.info("Duplicate event detected, not storing: {}", file);
+				return;
 			}
 
-			String newEventKey = getEventUniqueKey(jsonObject, topicName);
-			boolean found = false;
-			for (int i = 0; i < events.size(); i++) {
-				JsonObject existingEvent = events.get(i);
-				String existingKey = getEventUniqueKey(existingEvent, topicName);
-				if (existingKey.equals(newEventKey)) {
-					found = true;
-					if (!eventsEqualIgnoringTs(existingEvent, jsonObject)) {
-						events.set(i, jsonObject); // Replace
-						logger.info("Event replaced in file: {}", file.getAbsolutePath());
-					} else {
-						logger.info("Duplicate event detected, not storing: {}", file.getAbsolutePath());
+			segment.append(attributes, gson.toJson(jsonObject));
+			if (existingFingerprint != null) {
+				logger.info("Event replaced in file: {}", file);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public List<String> read(String topicName, String sourceSystem, Instant fromEventTime, Instant toEventTime) {
+		return read(topicName, sourceSystem, null, fromEventTime, toEventTime);
+	}
+
+	public List<String> read(String topicName, String sourceSystem, String location,
+							 Instant fromEventTime, Instant toEventTime) {
+		Path directory = baseDirectory.resolve(getTopicDirectoryName(topicName)).resolve(sourceSystem);
+		if (!Files.isDirectory(directory)) {
+			return List.of();
+		}
+
+		long from = fromEventTime.getEpochSecond();
+		long to = toEventTime.getEpochSecond();
+		List<EventSegment.StoredEvent> events = new ArrayList<>();
+
+		try (Stream<Path> files = Files.list(directory)) {
+			List<Path> candidates = files
+					.map(this::toEventsFile)
+					.filter(file -> file.getFileName().toString().endsWith(EVENTS_EXTENSION))
+					.distinct()
+					.filter(file -> segments.containsKey(file) || EventSegment.mayContain(file, from, to))
+					.sorted()
+					.toList();
+
+			for (Path file : candidates) {
+				segments.compute(file, (path, segment) -> {
+					EventSegment target = segment != null ? segment : openSegment(path, topicName);
+					try {
+						events.addAll(target.query(from, to, location));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
 					}
-					break;
-				}
+					return target;
+				});
 			}
-			if (!found) {
-				events.add(jsonObject);
-				//logger.info("Event appended to file: {}", file.getAbsolutePath());
+		} catch (IOException | UncheckedIOException e) {
+			logger.error("Failed to read events from {}: {}", directory, e.getMessage(), e);
+			throw new RuntimeException("Failed to read events", e);
+		}
+
+		events.sort(Comparator.comparingLong(EventSegment.StoredEvent::eventTime));
+		logger.debug("Read {} events from {} between {} and {}", events.size(), directory, fromEventTime, toEventTime);
+		return events.stream().map(EventSegment.StoredEvent::json).toList();
+	}
+
+	@Override
+	public void flush() {
+		for (EventSegment segment : segments.values()) {
+			try {
+				segment.force();
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to flush event segment", e);
 			}
+		}
+	}
 
-			// Write all events back to the file
-			try (BufferedWriter writer = new BufferedWriter(new FileWriter(file, false))) {
-				for (JsonObject event : events) {
-					gson.toJson(event, writer);
-					writer.newLine();
+	public void compact() {
+		for (Path file : segments.keySet()) {
+			segments.computeIfPresent(file, (path, segment) -> {
+				try {
+					boolean idle = segment.isIdle(SEGMENT_IDLE_MILLIS);
+					if (idle || segment.needsCompaction(COMPACTION_SUPERSEDED_RATIO)) {
+						segment.compact();
+					}
+					if (idle && compressSealedSegments && isPastDay(path)) {
+						segment.seal();
+					}
+					if (idle) {
+						segment.close();
+						logger.debug("Closed idle segment: {}", path);
+						return null;
+					}
+				} catch (IOException e) {
+					logger.error("Failed to compact {}: {}", path, e.getMessage(), e);
 				}
-			}
+				return segment;
+			});
+		}
+	}
+
+	public int compressSealedSegments() {
+		List<Path> candidates;
+		try (Stream<Path> files = Files.walk(baseDirectory)) {
+			candidates = files
+					.filter(file -> file.getFileName().toString().endsWith(EVENTS_EXTENSION))
+					.filter(this::isPastDay)
+					.sorted()
+					.toList();
 		} catch (IOException e) {
-			logger.error("Failed to store event: {}", e.getMessage(), e);
+			logger.error("Failed to list event segments under {}: {}", baseDirectory, e.getMessage(), e);
+			return 0;
+		}
+
+		int sealed = 0;
+		for (Path file : candidates) {
+			try {
+				segments.compute(file, (path, segment) -> {
+					try {
+						EventSegment target = segment != null ? segment : openSegment(path, path.getParent().getParent().getFileName().toString());
+						target.compact();
+						target.seal();
+						target.close();
+						return null;
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+				sealed++;
+			} catch (UncheckedIOException e) {
+				logger.error("Failed to compress {}: {}", file, e.getMessage(), e);
+			}
 		}
+		logger.info("Compressed {} sealed event segments under {}", sealed, baseDirectory);
+		return sealed;
+	}
+
+	private boolean isPastDay(Path file) {
+		String name = file.getFileName().toString();
+		try {
+			LocalDate day = LocalDate.parse(name.substring(0, name.indexOf('.')), FILE_DATE_FORMATTER);
+			return day.isBefore(LocalDate.now(ZoneOffset.UTC));
+		} catch (RuntimeException e) {
+			return false;
+		}
+	}
+
+	private Path toEventsFile(Path file) {
+		String name = file.getFileName().toString();
+		return name.endsWith(EVENTS_EXTENSION + CompressedEventFile.EXTENSION)
+				? file.resolveSibling(name.substring(0, name.length() - CompressedEventFile.EXTENSION.length()))
+				: file;
+	}
+
+	@Override
+	public void close() {
+		compactionExecutor.shutdownNow();
+		for (Path file : segments.keySet()) {
+			segments.computeIfPresent(file, (path, segment) -> {
+				try {
+					segment.close();
+				} catch (IOException e) {
+					logger.warn("Error closing segment {}: {}", path, e.getMessage());
+				}
+				return null;
+			});
+		}
+		logger.info("Event store manager closed");
 	}
 
 	private String getEventDateFromTs(JsonObject jsonObject) {
@@ -85,40 +284,48 @@ public class EventStoreManager implements EventStore {
 		}
 		String ts = jsonObject.get("ts").getAsString();
 		Instant instant = Instant.parse(ts);
-		DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-		return instant.atOffset(ZoneOffset.UTC).format(formatter);
+		return instant.atOffset(ZoneOffset.UTC).format(FILE_DATE_FORMATTER);
 	}
 
-	private boolean eventsEqualIgnoringTs(JsonObject a, JsonObject b) {
-		JsonObject aCopy = a.deepCopy();
-		JsonObject bCopy = b.deepCopy();
-		aCopy.remove("ts");
-		bCopy.remove("ts");
-		return aCopy.equals(bCopy);
-	}
-
-	private File createDirectory(JsonObject jsonObject, String topicName) throws IOException {
-		String topic = topicName.contains(".") ? topicName.substring(topicName.indexOf(".") + 1) : topicName;
+	private Path createDirectory(JsonObject jsonObject, String topicName) throws IOException {
+		String topic = getTopicDirectoryName(topicName);
 		String sourceSystem = getCleanedStringValue(jsonObject);
-		String directoryPath = "eventstore/" + topic + "/" + sourceSystem + "/";
-		File directory = new File(directoryPath);
+		Path directory = baseDirectory.resolve(topic).resolve(sourceSystem);
 
-		if (!directory.exists() && !directory.mkdirs()) {
-			String error = "Failed to create directory: " + directory.getAbsolutePath();
-			logger.error(error);
-			throw new IOException(error);
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			logger.error("Failed to create directory: {}", directory.toAbsolutePath());
+			throw e;
 		}
 
-		logger.debug("Created/accessed directory: {}", directory.getAbsolutePath());
+		logger.debug("Created/accessed directory: {}", directory.toAbsolutePath());
 		return directory;
 	}
 
+	private String getTopicDirectoryName(String topicName) {
+		return topicName.contains(".") ? topicName.substring(topicName.indexOf(".") + 1) : topicName;
+	}
+
 	private String getCleanedStringValue(JsonObject jsonObject) {
 		return jsonObject.get("ss").getAsString().replace("\"", "");
 	}
 
-	private String getEventUniqueKey(JsonObject event, String topicName) {
-		String topic = topicName.contains(".") ? topicName.substring(topicName.indexOf(".") + 1) : topicName;
+	private EventSegment.Attributes getEventAttributes(JsonObject event, String topicName) {
+		String topic = getTopicDirectoryName(topicName);
+		String eventTimeField = topic.equalsIgnoreCase("Energy") ? "priceTimestamp" : "predictionTimestamp";
+		String eventTime = event.has(eventTimeField) ? event.get(eventTimeField).getAsString() : event.get("ts").getAsString();
+
+		String location = null;
+		if (event.has("location") && event.get("location").isJsonObject()) {
+			JsonObject loc = event.getAsJsonObject("location");
+			if (loc.has("name")) location = loc.get("name").getAsString();
+		}
+		return new EventSegment.Attributes(getEventUniqueKey(event, topic), Instant.parse(eventTime).getEpochSecond(),
+				location, EventFingerprint.of(event));
+	}
+
+	private String getEventUniqueKey(JsonObject event, String topic) {
 		if (topic.equalsIgnoreCase("Energy")) {
 			return event.has("priceTimestamp") ? event.get("priceTimestamp").getAsString() : "";
 		} else if (topic.equalsIgnoreCase("Weather")) {
@@ -135,4 +342,4 @@ public class EventStoreManager implements EventStore {
 		}
 		return "";
 	}
-}
\ No newline at end of file
+}
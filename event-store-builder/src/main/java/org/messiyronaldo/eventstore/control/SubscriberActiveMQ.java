@@ -1,37 +1,56 @@
 package org.messiyronaldo.eventstore.control;
 
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.ActiveMQSession;
+import org.messiyronaldo.eventstore.utils.EventCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jms.*;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 public class SubscriberActiveMQ implements Subscriber {
 	private static final Logger logger = LoggerFactory.getLogger(SubscriberActiveMQ.class);
+	private static final int ACKNOWLEDGE_MODE = ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE;
+	private static final long RECEIVE_TIMEOUT_MILLIS = 500;
 	private final String brokerUrl;
 	private final String clientId;
 	private final String subscriberId;
-	private final EventStore eventStore;
+	private final EventBatchWriter batchWriter;
 	private Connection connection;
 	private Session session;
 	private MessageConsumer consumer;
+	private final BlockingQueue<Delivery> completedDeliveries = new LinkedBlockingQueue<>();
+	private Thread consumerThread;
+	private volatile boolean running = false;
 
-	public SubscriberActiveMQ(String brokerUrl, String clientId, String subscriberId, EventStore eventStore) {
+	public SubscriberActiveMQ(String brokerUrl, String clientId, String subscriberId, EventBatchWriter batchWriter) {
 		this.brokerUrl = brokerUrl;
 		this.clientId = clientId;
 		this.subscriberId = subscriberId;
-		this.eventStore = eventStore;
+		this.batchWriter = batchWriter;
 		logger.info("Subscriber initialized with client ID: {} and subscriber ID: {}", clientId, subscriberId);
 	}
 
 	@Override
 	public void start() {
 		try {
-			ConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
+			ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(brokerUrl);
+			// receiveNoWait only returns prefetched messages, so the prefetch must cover a full batch
+			factory.getPrefetchPolicy().setDurableTopicPrefetch(batchWriter.getMaxBatchSize() * 2);
 			connection = factory.createConnection();
 			connection.setClientID(clientId);
 			connection.start();
-			session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+			session = connection.createSession(false, ACKNOWLEDGE_MODE);
 			logger.info("Subscriber connected to ActiveMQ at {}", brokerUrl);
 		} catch (JMSException e) {
 			logger.error("Failed to start subscriber: {}", e.getMessage(), e);
@@ -44,7 +63,9 @@ public class SubscriberActiveMQ implements Subscriber {
 		try {
 			Topic topic = session.createTopic(topicName);
 			consumer = session.createDurableSubscriber(topic, subscriberId);
-			consumer.setMessageListener(message -> processMessage(message, topicName));
+			running = true;
+			consumerThread = new Thread(() -> runConsumerLoop(topicName), "Subscriber-" + subscriberId);
+			consumerThread.start();
 			logger.info("Subscribed to topic: {} with ID: {}", topicName, subscriberId);
 		} catch (JMSException e) {
 			logger.error("Failed to subscribe to {}: {}", topicName, e.getMessage(), e);
@@ -52,20 +73,119 @@ public class SubscriberActiveMQ implements Subscriber {
 		}
 	}
 
-	private void processMessage(Message message, String topicName) {
+	private void runConsumerLoop(String topicName) {
+		while (running) {
+			try {
+				List<Message> batch = receiveBatch();
+				if (!batch.isEmpty()) {
+					storeBatch(batch, topicName);
+				}
+			} catch (JMSException e) {
+				logger.error("Error receiving messages from {}: {}", topicName, e.getMessage(), e);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.warn("Interrupted while storing messages from topic: {}", topicName);
+				return;
+			}
+		}
+	}
+
+	private List<Message> receiveBatch() throws JMSException {
+		List<Message> batch = new ArrayList<>();
+		Message message = consumer.receive(RECEIVE_TIMEOUT_MILLIS);
+		while (message != null) {
+			batch.add(message);
+			if (batch.size() >= batchWriter.getMaxBatchSize()) {
+				break;
+			}
+			message = consumer.receiveNoWait();
+		}
+		return batch;
+	}
+
+	private void storeBatch(List<Message> batch, String topicName) throws JMSException, InterruptedException {
+		int pending = 0;
+		for (Message message : batch) {
+			JsonObject event = decodeOrDiscard(message, topicName);
+			if (event == null) {
+				acknowledge(message);
+				continue;
+			}
+			batchWriter.submit(event, topicName, stored -> completedDeliveries.add(new Delivery(message, stored)));
+			pending++;
+		}
+
+		int failed = 0;
+		while (pending > 0) {
+			Delivery delivery = completedDeliveries.poll(RECEIVE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			if (delivery == null) {
+				if (!running) return;
+				continue;
+			}
+			pending--;
+			if (!delivery.stored() || !acknowledge(delivery.message())) {
+				failed++;
+			}
+		}
+
+		if (failed > 0) {
+			logger.warn("{} events from {} not stored, recovering session for redelivery", failed, topicName);
+			session.recover();
+		}
+	}
+
+	private JsonObject decodeOrDiscard(Message message, String topicName) {
 		try {
-			if (message instanceof TextMessage) {
-				String json = ((TextMessage) message).getText();
-				logger.debug("Received message from topic: {}", topicName);
-				eventStore.storeEventToFile(json, topicName);
+			JsonObject event = decodeMessage(message);
+			if (event == null) {
+				logger.warn("Discarding message with unsupported format from topic: {}", topicName);
+			}
+			return event;
+		} catch (JMSException | JsonParseException | IllegalArgumentException | UncheckedIOException e) {
+			logger.error("Discarding undecodable message from topic {}: {}", topicName, e.getMessage());
+			return null;
+		}
+	}
+
+	private JsonObject decodeMessage(Message message) throws JMSException {
+		if (message instanceof TextMessage textMessage) {
+			JsonElement json = JsonParser.parseString(textMessage.getText());
+			if (!json.isJsonObject()) {
+				throw new JsonParseException("Event is not a JSON object");
 			}
+			return json.getAsJsonObject();
+		}
+		if (message instanceof BytesMessage bytesMessage
+				&& EventCodec.BINARY_CONTENT_TYPE.equals(message.getStringProperty(EventCodec.CONTENT_TYPE_PROPERTY))) {
+			byte[] data = new byte[(int) bytesMessage.getBodyLength()];
+			bytesMessage.readBytes(data);
+			return EventCodec.decode(data);
+		}
+		return null;
+	}
+
+	private boolean acknowledge(Message message) {
+		try {
+			message.acknowledge();
+			return true;
 		} catch (JMSException e) {
-			logger.error("Error processing message: {}", e.getMessage(), e);
+			logger.warn("Failed to acknowledge message: {}", e.getMessage());
+			return false;
 		}
 	}
 
 	@Override
 	public void close() {
+		running = false;
+		if (consumerThread != null) {
+			try {
+				consumerThread.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				logger.warn("Interrupted while stopping subscriber {}", subscriberId);
+			}
+		}
+
 		try {
 			if (consumer != null) {
 				consumer.close();
@@ -85,4 +205,7 @@ public class SubscriberActiveMQ implements Subscriber {
 			throw new RuntimeException("Failed to close subscriber", e);
 		}
 	}
-}
\ No newline at end of file
+
+	private record Delivery(Message message, boolean stored) {
+	}
+}
@@ -0,0 +1,85 @@
+package org.messiyronaldo.eventstore.utils;
+
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+public final class EventCodec {
+	public static final String CONTENT_TYPE_PROPERTY = "contentType";
+	public static final String BINARY_CONTENT_TYPE = "application/vnd.pv-event+binary";
+	private static final byte ENERGY_EVENT = 1;
+	private static final byte WEATHER_EVENT = 2;
+	private static final byte SCHEMA_VERSION = 1;
+
+	private EventCodec() {
+	}
+
+	// Mirrors the feeders' EnergyPriceCodec and WeatherCodec; fields are added in the order Gson writes them
+	public static JsonObject decode(byte[] data) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			byte eventType = in.readByte();
+			byte schemaVersion = in.readByte();
+			if (schemaVersion != SCHEMA_VERSION) {
+				throw new IllegalArgumentException("Unsupported event schema version: " + schemaVersion);
+			}
+			return switch (eventType) {
+				case ENERGY_EVENT -> decodeEnergy(in);
+				case WEATHER_EVENT -> decodeWeather(in);
+				default -> throw new IllegalArgumentException("Unknown event type: " + eventType);
+			};
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decode binary event", e);
+		}
+	}
+
+	private static JsonObject decodeEnergy(DataInputStream in) throws IOException {
+		JsonObject event = new JsonObject();
+		addInstant(event, "ts", in);
+		addInstant(event, "priceTimestamp", in);
+		event.addProperty("pricePVPC", in.readDouble());
+		event.addProperty("priceSpot", in.readDouble());
+		addString(event, "ss", in);
+		return event;
+	}
+
+	private static JsonObject decodeWeather(DataInputStream in) throws IOException {
+		JsonObject event = new JsonObject();
+		addInstant(event, "ts", in);
+		if (in.readBoolean()) {
+			JsonObject location = new JsonObject();
+			addString(location, "name", in);
+			location.addProperty("latitude", in.readDouble());
+			location.addProperty("longitude", in.readDouble());
+			event.add("location", location);
+		}
+		addInstant(event, "predictionTimestamp", in);
+		event.addProperty("temperature", in.readDouble());
+		event.addProperty("humidity", in.readInt());
+		event.addProperty("weatherID", in.readInt());
+		addString(event, "weatherMain", in);
+		addString(event, "weatherDescription", in);
+		event.addProperty("cloudiness", in.readInt());
+		event.addProperty("windSpeed", in.readDouble());
+		event.addProperty("rainVolume", in.readDouble());
+		event.addProperty("snowVolume", in.readDouble());
+		addString(event, "partOfDay", in);
+		addString(event, "ss", in);
+		return event;
+	}
+
+	private static void addInstant(JsonObject event, String name, DataInputStream in) throws IOException {
+		if (in.readBoolean()) {
+			event.addProperty(name, Instant.ofEpochSecond(in.readLong(), in.readInt()).toString());
+		}
+	}
+
+	private static void addString(JsonObject event, String name, DataInputStream in) throws IOException {
+		if (in.readBoolean()) {
+			event.addProperty(name, in.readUTF());
+		}
+	}
+}
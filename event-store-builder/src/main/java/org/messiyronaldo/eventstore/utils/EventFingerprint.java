@@ -0,0 +1,100 @@
+package org.messiyronaldo.eventstore.utils;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.util.Arrays;
+import java.util.Set;
+
+// 128 bits from two independent 64-bit lanes, wide enough to trust a match without reading the stored event back
+public record EventFingerprint(long high, long low) {
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final long MIX_SEED = 0x9e3779b97f4a7c15L;
+	private static final long MIX_MULTIPLIER = 0xbf58476d1ce4e5b9L;
+	private static final long FINISH_MULTIPLIER = 0x94d049bb133111ebL;
+	private static final String IGNORED_FIELD = "ts";
+
+	// Canonical walk: sorted keys, numbers by value, top-level ts excluded
+	public static EventFingerprint of(JsonObject event) {
+		Hasher hasher = new Hasher();
+		hashObject(hasher, event, true);
+		return new EventFingerprint(hasher.fnv, finish(hasher.mix));
+	}
+
+	private static void hashElement(Hasher hasher, JsonElement element) {
+		if (element.isJsonObject()) {
+			hasher.add('{');
+			hashObject(hasher, element.getAsJsonObject(), false);
+			return;
+		}
+		if (element.isJsonArray()) {
+			JsonArray array = element.getAsJsonArray();
+			hasher.add('[');
+			hasher.addLong(array.size());
+			for (JsonElement item : array) {
+				hashElement(hasher, item);
+			}
+			return;
+		}
+		if (element.isJsonNull()) {
+			hasher.add('n');
+			return;
+		}
+
+		JsonPrimitive primitive = element.getAsJsonPrimitive();
+		if (primitive.isNumber()) {
+			hasher.add('#');
+			hasher.addLong(Double.doubleToLongBits(primitive.getAsDouble() + 0.0));
+		} else if (primitive.isBoolean()) {
+			hasher.add(primitive.getAsBoolean() ? 't' : 'f');
+		} else {
+			hasher.add('"');
+			hasher.addString(primitive.getAsString());
+		}
+	}
+
+	private static void hashObject(Hasher hasher, JsonObject object, boolean topLevel) {
+		Set<String> keySet = object.keySet();
+		String[] keys = keySet.toArray(new String[0]);
+		Arrays.sort(keys);
+
+		for (String key : keys) {
+			if (topLevel && key.equals(IGNORED_FIELD)) continue;
+			hasher.addString(key);
+			hashElement(hasher, object.get(key));
+		}
+		hasher.add('}');
+	}
+
+	private static long finish(long hash) {
+		hash = (hash ^ (hash >>> 30)) * MIX_MULTIPLIER;
+		hash = (hash ^ (hash >>> 27)) * FINISH_MULTIPLIER;
+		return hash ^ (hash >>> 31);
+	}
+
+	private static final class Hasher {
+		long fnv = FNV_OFFSET_BASIS;
+		long mix = MIX_SEED;
+
+		void addString(String value) {
+			addLong(value.length());
+			for (int i = 0; i < value.length(); i++) {
+				add(value.charAt(i));
+			}
+		}
+
+		void addLong(long value) {
+			for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+				add((char) ((value >>> shift) & 0xFF));
+			}
+		}
+
+		void add(char value) {
+			fnv = (fnv ^ value) * FNV_PRIME;
+			mix = Long.rotateLeft((mix ^ value) * MIX_MULTIPLIER, 31);
+		}
+	}
+}
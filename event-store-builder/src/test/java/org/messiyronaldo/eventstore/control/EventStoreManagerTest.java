@@ -6,6 +6,8 @@ import org.junit.jupiter.api.*;
 import java.io.*;
 import java.nio.file.*;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +41,29 @@ class EventStoreManagerTest {
         eventStoreManager = new EventStoreManager();
     }
 
+    @AfterEach
+    void teardown() {
+        eventStoreManager.close();
+    }
+
+    private static String weatherEvent(String ts, String predictionTimestamp, double temperature) {
+        return "{" +
+                "\"ts\":\"" + ts + "\"," +
+                "\"location\":{\"name\":\"Madrid\",\"latitude\":40.4,\"longitude\":-3.7}," +
+                "\"predictionTimestamp\":\"" + predictionTimestamp + "\"," +
+                "\"temperature\":" + temperature + "," +
+                "\"humidity\":60," +
+                "\"weatherID\":800," +
+                "\"weatherMain\":\"Clear\"," +
+                "\"weatherDescription\":\"clear sky\"," +
+                "\"cloudiness\":0," +
+                "\"windSpeed\":2.0," +
+                "\"rainVolume\":0.0," +
+                "\"snowVolume\":0.0," +
+                "\"partOfDay\":\"d\"," +
+                "\"ss\":\"OpenWeatherApi\"}";
+    }
+
     @Test
     void testStoreEventToFile_createsFileAndAvoidsDuplicates() throws Exception {
         String ts = Instant.now().toString();
@@ -77,4 +102,103 @@ class EventStoreManagerTest {
         lines = Files.readAllLines(filePath);
         assertEquals(2, lines.size(), "Should have two events (different data)");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCompact_keepsOnlyLatestVersionOfReplacedEvents() throws Exception {
+        String ts = "2024-01-02T10:00:00Z";
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-02T12:00:00Z", 10.0), TOPIC);
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-02T13:00:00Z", 11.0), TOPIC);
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-02T12:00:00Z", 12.5), TOPIC);
+
+        Path filePath = tempDir.resolve("eventstore/Weather/OpenWeatherApi/20240102.events");
+        assertEquals(3, Files.readAllLines(filePath).size(), "Replacement should be appended");
+
+        eventStoreManager.compact();
+        List<String> lines = Files.readAllLines(filePath);
+        assertEquals(2, lines.size(), "Superseded event should be removed by compaction");
+        assertTrue(lines.get(0).contains("\"2024-01-02T13:00:00Z\""));
+        assertTrue(lines.get(1).contains("12.5"));
+
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-02T13:00:00Z", 11.0), TOPIC);
+        assertEquals(2, Files.readAllLines(filePath).size(), "Index should survive compaction");
+    }
+
+    @Test
+    void testStoreEventToFile_rebuildsIndexFromExistingFile() throws Exception {
+        String ts = "2024-01-03T10:00:00Z";
+        String event = weatherEvent(ts, "2024-01-03T12:00:00Z", 9.0);
+        eventStoreManager.storeEventToFile(event, TOPIC);
+        eventStoreManager.close();
+
+        eventStoreManager = new EventStoreManager();
+        eventStoreManager.storeEventToFile(event.replace(ts, "2024-01-03T11:00:00Z"), TOPIC);
+
+        Path filePath = tempDir.resolve("eventstore/Weather/OpenWeatherApi/20240103.events");
+        assertEquals(1, Files.readAllLines(filePath).size(), "Restarted store should detect the duplicate");
+    }
+
+    @Test
+    void testRead_returnsOnlyEventsInEventTimeRange() throws Exception {
+        String ts = "2024-01-04T10:00:00Z";
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2023-12-31T12:00:00Z", 5.0), TOPIC);
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-01T12:00:00Z", 6.0), TOPIC);
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-01T13:00:00Z", 7.0), TOPIC);
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-02T12:00:00Z", 8.0), TOPIC);
+
+        Instant from = Instant.parse("2024-01-01T00:00:00Z");
+        Instant to = Instant.parse("2024-01-02T00:00:00Z");
+        List<String> events = eventStoreManager.read(TOPIC, "OpenWeatherApi", from, to);
+        assertEquals(2, events.size(), "Only events predicted for 2024-01-01 should be returned");
+        assertTrue(events.get(0).contains("6.0"));
+        assertTrue(events.get(1).contains("7.0"));
+
+        eventStoreManager.close();
+        assertTrue(Files.exists(tempDir.resolve("eventstore/Weather/OpenWeatherApi/20240104.events.idx")),
+                "Index should be persisted on close");
+
+        eventStoreManager = new EventStoreManager();
+        assertEquals(2, eventStoreManager.read(TOPIC, "OpenWeatherApi", from, to).size(),
+                "Persisted index should answer the same query after restart");
+        assertTrue(eventStoreManager.read(TOPIC, "OpenWeatherApi", "Sevilla", from, to).isEmpty(),
+                "Location filter should exclude other locations");
+    }
+
+    @Test
+    void testCompressSealedSegments_keepsEventsReadableAndWritable() throws Exception {
+        String ts = "2024-01-05T10:00:00Z";
+        String event = weatherEvent(ts, "2024-01-05T12:00:00Z", 4.0);
+        eventStoreManager.storeEventToFile(event, TOPIC);
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-05T13:00:00Z", 4.5), TOPIC);
+        eventStoreManager.compressSealedSegments();
+
+        Path filePath = tempDir.resolve("eventstore/Weather/OpenWeatherApi/20240105.events");
+        assertFalse(Files.exists(filePath), "Plain segment should be replaced by its compressed form");
+        assertTrue(Files.exists(tempDir.resolve("eventstore/Weather/OpenWeatherApi/20240105.events.z")));
+        assertEquals(2, eventStoreManager.read(TOPIC, "OpenWeatherApi",
+                Instant.parse("2024-01-05T00:00:00Z"), Instant.parse("2024-01-06T00:00:00Z")).size());
+
+        eventStoreManager.storeEventToFile(event, TOPIC);
+        assertFalse(Files.exists(filePath), "Duplicates should be detected without reopening for writing");
+
+        eventStoreManager.storeEventToFile(weatherEvent(ts, "2024-01-05T14:00:00Z", 5.0), TOPIC);
+        assertEquals(3, Files.readAllLines(filePath).size(), "Late events should reopen the segment");
+    }
+
+    @Test
+    void testStoreEventToFile_detectsDuplicatesRegardlessOfFormatting() throws Exception {
+        String event = weatherEvent("2024-01-06T10:00:00Z", "2024-01-06T12:00:00Z", 15.0);
+        eventStoreManager.storeEventToFile(event, TOPIC);
+
+        JsonObject reordered = new JsonObject();
+        JsonObject original = new Gson().fromJson(event, JsonObject.class);
+        List<String> keys = new ArrayList<>(original.keySet());
+        Collections.reverse(keys);
+        keys.forEach(key -> reordered.add(key, original.get(key)));
+        reordered.addProperty("ts", "2024-01-06T11:00:00Z");
+        reordered.addProperty("temperature", 15);
+        eventStoreManager.storeEventToFile(reordered.toString(), TOPIC);
+
+        Path filePath = tempDir.resolve("eventstore/Weather/OpenWeatherApi/20240106.events");
+        assertEquals(1, Files.readAllLines(filePath).size(), "Reordered event with equal values should be a duplicate");
+    }
+}
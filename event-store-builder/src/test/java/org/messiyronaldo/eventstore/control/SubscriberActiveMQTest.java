@@ -0,0 +1,210 @@
+package org.messiyronaldo.eventstore.control;
+
+import com.google.gson.JsonObject;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.junit.jupiter.api.*;
+
+import javax.jms.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubscriberActiveMQTest {
+    private static final String WEATHER_TOPIC = "prediction.Weather";
+    private static final String ENERGY_TOPIC = "prediction.Energy";
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static int brokerCount;
+
+    private String brokerUrl;
+    private RecordingStore store;
+    private EventBatchWriter writer;
+    private final List<SubscriberActiveMQ> subscribers = new ArrayList<>();
+    private Connection producerConnection;
+    private Session producerSession;
+
+    @BeforeEach
+    void setup() throws JMSException {
+        // Non-persistent embedded broker; the producer connection keeps it alive across subscriber restarts
+        brokerUrl = "vm://subscriber-test-" + (++brokerCount) + "?broker.persistent=false&broker.useJmx=false";
+        producerConnection = new ActiveMQConnectionFactory(brokerUrl).createConnection();
+        producerConnection.start();
+        producerSession = producerConnection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        store = new RecordingStore();
+        writer = new EventBatchWriter(store, 1000, 50, 20);
+        writer.start();
+    }
+
+    @AfterEach
+    void teardown() throws JMSException {
+        subscribers.forEach(SubscriberActiveMQ::close);
+        subscribers.clear();
+        writer.close();
+        producerConnection.close();
+    }
+
+    private SubscriberActiveMQ subscribe(String subscriberId, String topic) {
+        SubscriberActiveMQ subscriber = new SubscriberActiveMQ(brokerUrl, "client-" + subscriberId, subscriberId, writer);
+        subscriber.start();
+        subscriber.subscribe(topic);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    private void closeSubscriber(SubscriberActiveMQ subscriber) {
+        subscribers.remove(subscriber);
+        subscriber.close();
+    }
+
+    private void publish(String topic, int from, int to) throws JMSException {
+        MessageProducer producer = producerSession.createProducer(producerSession.createTopic(topic));
+        for (int id = from; id < to; id++) {
+            producer.send(producerSession.createTextMessage("{\"id\":\"" + topic + "-" + id + "\"}"));
+        }
+        producer.close();
+    }
+
+    private static void await(BooleanSupplier condition, String description) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Timed out waiting for " + description);
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private static List<String> ids(String topic, int from, int to) {
+        List<String> ids = new ArrayList<>();
+        for (int id = from; id < to; id++) {
+            ids.add(topic + "-" + id);
+        }
+        return ids;
+    }
+
+    @Test
+    void batchIsFlushedOnceAndThenAcknowledged() throws Exception {
+        closeSubscriber(subscribe("weather", WEATHER_TOPIC));
+        publish(WEATHER_TOPIC, 0, 120);
+
+        SubscriberActiveMQ subscriber = subscribe("weather", WEATHER_TOPIC);
+        await(() -> store.durable().size() == 120, "all events to be flushed");
+        closeSubscriber(subscriber);
+
+        assertEquals(ids(WEATHER_TOPIC, 0, 120), store.durable());
+        assertEquals(120, store.flushedEvents(), "Every event should be in exactly one flushed batch");
+        assertTrue(store.flushCount() < 120, "Events should be flushed in batches");
+
+        subscribe("weather", WEATHER_TOPIC);
+        Thread.sleep(1500);
+        assertEquals(120, store.attempts(), "Acknowledged events must not be redelivered");
+    }
+
+    @Test
+    void failedFlushRecoversTheSessionAndAcknowledgesNothing() throws Exception {
+        store.failNextFlushes(1);
+        subscribe("weather", WEATHER_TOPIC);
+        publish(WEATHER_TOPIC, 0, 30);
+
+        await(() -> store.durable().size() == 30, "redelivered events to be flushed");
+        List<String> failedBatch = store.failedBatches().get(0);
+        assertFalse(failedBatch.isEmpty());
+        for (String id : failedBatch) {
+            assertEquals(2, store.attemptsOf(id), "Events of the failed batch should be redelivered once: " + id);
+        }
+        assertEquals(ids(WEATHER_TOPIC, 0, 30), store.durable(), "Redelivery should keep the topic order");
+    }
+
+    @Test
+    void eachTopicKeepsItsOrderAcrossTwoSubscribers() throws Exception {
+        subscribe("weather", WEATHER_TOPIC);
+        subscribe("energy", ENERGY_TOPIC);
+        for (int block = 0; block < 10; block++) {
+            publish(WEATHER_TOPIC, block * 30, (block + 1) * 30);
+            publish(ENERGY_TOPIC, block * 30, (block + 1) * 30);
+        }
+
+        await(() -> store.durable().size() == 600, "both topics to be flushed");
+        List<String> weather = store.durable().stream().filter(id -> id.startsWith(WEATHER_TOPIC)).toList();
+        List<String> energy = store.durable().stream().filter(id -> id.startsWith(ENERGY_TOPIC)).toList();
+        assertEquals(ids(WEATHER_TOPIC, 0, 300), weather);
+        assertEquals(ids(ENERGY_TOPIC, 0, 300), energy);
+    }
+
+    private static class RecordingStore implements EventStore {
+        private final List<String> unflushed = new ArrayList<>();
+        private final List<String> durable = new ArrayList<>();
+        private final List<List<String>> failedBatches = new ArrayList<>();
+        private final Map<String, Integer> attempts = new HashMap<>();
+        private int flushCount;
+        private int flushedEvents;
+        private int failingFlushes;
+
+        synchronized void failNextFlushes(int count) {
+            failingFlushes = count;
+        }
+
+        @Override
+        public void storeEventToFile(String json, String topicName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized void storeEvent(JsonObject event, String topicName) {
+            String id = event.get("id").getAsString();
+            attempts.merge(id, 1, Integer::sum);
+            unflushed.add(id);
+        }
+
+        @Override
+        public List<String> read(String topicName, String sourceSystem, Instant fromEventTime, Instant toEventTime) {
+            return List.of();
+        }
+
+        @Override
+        public synchronized void flush() {
+            List<String> batch = new ArrayList<>(unflushed);
+            unflushed.clear();
+            if (failingFlushes > 0) {
+                failingFlushes--;
+                failedBatches.add(batch);
+                throw new RuntimeException("Simulated flush failure");
+            }
+            flushCount++;
+            flushedEvents += batch.size();
+            durable.addAll(batch);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        synchronized List<String> durable() {
+            return new ArrayList<>(durable);
+        }
+
+        synchronized List<List<String>> failedBatches() {
+            return new ArrayList<>(failedBatches);
+        }
+
+        synchronized int flushCount() {
+            return flushCount;
+        }
+
+        synchronized int flushedEvents() {
+            return flushedEvents;
+        }
+
+        synchronized int attempts() {
+            return attempts.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        synchronized int attemptsOf(String id) {
+            return attempts.getOrDefault(id, 0);
+        }
+    }
+}
@@ -2,51 +2,65 @@ package org.messiyronaldo.weather;
 
 import org.messiyronaldo.weather.control.*;
 import org.messiyronaldo.weather.model.Location;
+import org.messiyronaldo.weather.utils.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 public class Main {
 	private static final long UPDATE_INTERVAL_MINUTES = 60 * 6;
-	private static final int CONTROLLER_START_DELAY_SECONDS = 3;
-	private static final List<WeatherController> controllers = new java.util.ArrayList<>();
+	private static final int MAX_CONCURRENT_REQUESTS = 16;
+	private static final int API_CALLS_PER_MINUTE = 600;
+	private static final int API_BURST_CAPACITY = 20;
+	private static final boolean PUBLISHER_ASYNC_SEND = false;
+	private static final int PUBLISHER_WINDOW_BYTES = 1024 * 1024;
+	private static final String BINARY_EVENTS_FLAG = "--binary-events";
+	private static final boolean RECORD_FORECAST_REVISIONS = true;
 	private static final Logger logger = LoggerFactory.getLogger(Main.class);
+	private static WeatherScheduler weatherScheduler;
+	private static WeatherPublisher weatherPublisher;
+	private static SQLiteWeatherStore sqliteStore;
 
 	public static void main(String[] args) {
+		boolean publishBinaryEvents = Arrays.asList(args).contains(BINARY_EVENTS_FLAG);
+		args = Arrays.stream(args).filter(arg -> !arg.equals(BINARY_EVENTS_FLAG)).toArray(String[]::new);
 		validateArguments(args);
 
 		String apiKey = args[0];
 		String databaseFileName = args[1];
 		String storeType = args[2].toLowerCase();
 
-		List<Location> monitoredLocations = createLocationsList();
+		List<Location> monitoredLocations = args.length == 4 ? loadLocationsFile(args[3]) : createLocationsList();
 
 		WeatherProvider weatherProvider = new OpenWeatherProvider(apiKey);
 		WeatherStore weatherStore = null;
-		WeatherPublisher weatherPublisher = null;
 
 		if (storeType.equals("sql")) {
-			weatherStore = new SQLiteWeatherStore(databaseFileName);
+			sqliteStore = new SQLiteWeatherStore(databaseFileName, RECORD_FORECAST_REVISIONS);
+			weatherStore = sqliteStore;
 		} else if (storeType.equals("activemq")) {
-			weatherPublisher = new ActiveMQWeatherPublisher();
+			weatherPublisher = new ActiveMQWeatherPublisher(PUBLISHER_ASYNC_SEND, PUBLISHER_WINDOW_BYTES, publishBinaryEvents);
 			weatherPublisher.start();
-			logger.info("Weather publisher started successfully");
+			logger.info("Weather publisher started successfully ({} events)", publishBinaryEvents ? "binary" : "JSON");
 		} else {
 			logger.error("Invalid store type. Use 'sql' or 'activemq'.");
 			System.exit(1);
 		}
 
-		startWeatherControllers(monitoredLocations, weatherProvider, weatherStore, weatherPublisher);
+		startWeatherScheduler(monitoredLocations, weatherProvider, weatherStore, weatherPublisher);
 		registerShutdownHook();
 		keepApplicationRunning();
 	}
 
 	private static void validateArguments(String[] args) {
-		if (args.length != 3) {
-			logger.error("Invalid arguments. Usage: java -jar weather-feeder.jar <api-key> <database-file> <store-type>");
+		if (args.length != 3 && args.length != 4) {
+			logger.error("Invalid arguments. Usage: java -jar weather-feeder.jar <api-key> <database-file> <store-type> [locations-file] [" + BINARY_EVENTS_FLAG + "]");
 			System.exit(1);
 		}
 	}
@@ -58,44 +72,67 @@ public class Main {
 		);
 	}
 
-	private static void startWeatherControllers(List<Location> locations,
-												WeatherProvider provider,
-												WeatherStore store,
-												WeatherPublisher publisher) {
+	private static List<Location> loadLocationsFile(String fileName) {
+		List<Location> locations = new ArrayList<>();
+		try {
+			for (String line : Files.readAllLines(Path.of(fileName))) {
+				String trimmed = line.trim();
+				if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+				String[] fields = trimmed.split(",");
+				locations.add(new Location(fields[0].trim(),
+						Double.parseDouble(fields[1].trim()),
+						Double.parseDouble(fields[2].trim())));
+			}
+		} catch (IOException | RuntimeException e) {
+			logger.error("Invalid locations file {}: {}", fileName, e.getMessage());
+			System.exit(1);
+		}
+		logger.info("Loaded {} locations from {}", locations.size(), fileName);
+		return locations;
+	}
+
+	private static void startWeatherScheduler(List<Location> locations,
+											  WeatherProvider provider,
+											  WeatherStore store,
+											  WeatherPublisher publisher) {
 		logger.info("Starting weather monitoring for {} locations", locations.size());
 
+		List<WeatherController> controllers = new ArrayList<>();
 		for (Location location : locations) {
-			WeatherController controller = new WeatherController(location, provider, store, publisher, UPDATE_INTERVAL_MINUTES);
-			controller.start();
-			controllers.add(controller);
-			logger.info("Controller started for: {}", location.getName());
-			delayBetweenControllers();
+			controllers.add(new WeatherController(location, provider, store, publisher));
 		}
 
-		logger.info("Application running. Data will update every {} minutes", UPDATE_INTERVAL_MINUTES);
-	}
+		RateLimiter rateLimiter = new RateLimiter(API_CALLS_PER_MINUTE, API_BURST_CAPACITY);
+		weatherScheduler = new WeatherScheduler(controllers, UPDATE_INTERVAL_MINUTES, MAX_CONCURRENT_REQUESTS, rateLimiter);
+		weatherScheduler.start();
 
-	private static void delayBetweenControllers() {
-		try {
-			TimeUnit.SECONDS.sleep(CONTROLLER_START_DELAY_SECONDS);
-		} catch (InterruptedException e) {
-			Thread.currentThread().interrupt();
-			logger.warn("Controller start delay interrupted");
-		}
+		logger.info("Application running. Data will update every {} minutes", UPDATE_INTERVAL_MINUTES);
 	}
 
 	private static void registerShutdownHook() {
 		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
 			logger.info("Shutting down weather-feeder application...");
-			shutdownAllControllers();
+			shutdownScheduler();
 		}));
 	}
 
-	private static void shutdownAllControllers() {
-		for (WeatherController controller : controllers) {
-			controller.shutdown();
+	private static void shutdownScheduler() {
+		if (weatherScheduler != null) {
+			weatherScheduler.shutdown();
+		}
+		if (weatherPublisher != null) {
+			try {
+				weatherPublisher.close();
+				logger.info("Weather publisher closed successfully");
+			} catch (Exception e) {
+				logger.error("Error closing weather publisher: {}", e.getMessage(), e);
+			}
+		}
+		if (sqliteStore != null) {
+			sqliteStore.close();
 		}
-		logger.info("All weather controllers shut down successfully");
+		logger.info("Weather monitoring shut down successfully");
 	}
 
 	private static void keepApplicationRunning() {
@@ -105,4 +142,4 @@ public class Main {
 			logger.info("Application terminated");
 		}
 	}
-}
\ No newline at end of file
+}
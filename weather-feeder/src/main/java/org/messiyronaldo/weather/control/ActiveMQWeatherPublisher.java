@@ -5,26 +5,41 @@ import com.google.gson.GsonBuilder;
 import org.apache.activemq.ActiveMQConnectionFactory;
 import org.messiyronaldo.weather.model.Weather;
 import org.messiyronaldo.weather.utils.InstantTypeAdapter;
+import org.messiyronaldo.weather.utils.WeatherCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.jms.*;
 import java.time.Instant;
 import java.lang.IllegalStateException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class ActiveMQWeatherPublisher implements WeatherPublisher {
 	private static final Logger logger = LoggerFactory.getLogger(ActiveMQWeatherPublisher.class);
 	private static final String BROKER_URL = "tcp://localhost:61616";
 	private static final String TOPIC_NAME = "prediction.Weather";
-	private static final int SESSION_ACKNOWLEDGE_MODE = Session.AUTO_ACKNOWLEDGE;
-	private static final boolean TRANSACTED = false;
+	private static final int SESSION_ACKNOWLEDGE_MODE = Session.SESSION_TRANSACTED;
+	private static final boolean TRANSACTED = true;
 
 	private final Gson gson;
+	private final boolean asyncSend;
+	private final int producerWindowSize;
+	private final boolean binaryEvents;
+	private final Queue<PublisherChannel> idleChannels = new ConcurrentLinkedQueue<>();
 	private Connection connection;
 	private volatile boolean started = false;
 
 	public ActiveMQWeatherPublisher() {
-		gson = createGsonInstance();
+		this(false, 0, false);
+	}
+
+	public ActiveMQWeatherPublisher(boolean asyncSend, int producerWindowSize, boolean binaryEvents) {
+		this.gson = createGsonInstance();
+		this.asyncSend = asyncSend;
+		this.producerWindowSize = producerWindowSize;
+		this.binaryEvents = binaryEvents;
 	}
 
 	private Gson createGsonInstance() {
@@ -58,7 +73,14 @@ public class ActiveMQWeatherPublisher implements WeatherPublisher {
 	}
 
 	private ConnectionFactory createConnectionFactory() {
-		return new ActiveMQConnectionFactory(BROKER_URL);
+		ActiveMQConnectionFactory factory = new ActiveMQConnectionFactory(BROKER_URL);
+		if (asyncSend) {
+			// Async sends do not wait for the broker; the producer window caps the unacknowledged bytes in flight
+			factory.setUseAsyncSend(true);
+			factory.setProducerWindowSize(producerWindowSize);
+			logger.info("Async send enabled with a producer window of {} bytes", producerWindowSize);
+		}
+		return factory;
 	}
 
 	private void handleConnectionError(JMSException e) {
@@ -68,21 +90,57 @@ public class ActiveMQWeatherPublisher implements WeatherPublisher {
 
 	@Override
 	public void publish(Weather weather) {
+		publishAll(List.of(weather));
+	}
+
+	@Override
+	public void publishAll(List<Weather> forecasts) {
 		validatePublisherState();
-		Session session = null;
-		MessageProducer producer = null;
+		PublisherChannel channel = null;
 
 		try {
-			session = createSession();
-			producer = createProducer(session);
-			sendWeatherEvent(producer, session, weather);
+			channel = borrowChannel();
+			for (Weather weather : forecasts) {
+				sendWeatherEvent(channel.producer(), channel.session(), weather);
+			}
+			channel.session().commit();
+			logger.info("Published {} weather events to topic: {}", forecasts.size(), TOPIC_NAME);
+			releaseChannel(channel);
 		} catch (JMSException e) {
+			discardChannel(channel);
 			handlePublishError(e);
-		} finally {
-			closeResources(producer, session);
 		}
 	}
 
+	private PublisherChannel borrowChannel() throws JMSException {
+		PublisherChannel channel = idleChannels.poll();
+		if (channel != null) {
+			return channel;
+		}
+		Session session = createSession();
+		return new PublisherChannel(session, createProducer(session));
+	}
+
+	private void releaseChannel(PublisherChannel channel) {
+		if (started) {
+			idleChannels.offer(channel);
+		} else {
+			closeResources(channel.producer(), channel.session());
+		}
+	}
+
+	private void discardChannel(PublisherChannel channel) {
+		if (channel == null) {
+			return;
+		}
+		try {
+			channel.session().rollback();
+		} catch (JMSException e) {
+			logger.warn("Error rolling back session: {}", e.getMessage());
+		}
+		closeResources(channel.producer(), channel.session());
+	}
+
 	private void validatePublisherState() {
 		if (!started) {
 			throw new IllegalStateException("Publisher must be started before publishing messages");
@@ -101,6 +159,12 @@ public class ActiveMQWeatherPublisher implements WeatherPublisher {
 	}
 
 	private void sendWeatherEvent(MessageProducer producer, Session session, Weather weather) throws JMSException {
+		if (binaryEvents) {
+			producer.send(createBytesMessage(session, weather));
+			logger.debug("Weather event content (binary): {}", weather);
+			return;
+		}
+
 		String jsonEvent = serializeWeatherEvent(weather);
 		TextMessage message = createTextMessage(session, jsonEvent);
 		producer.send(message);
@@ -115,8 +179,15 @@ public class ActiveMQWeatherPublisher implements WeatherPublisher {
 		return session.createTextMessage(jsonEvent);
 	}
 
+	private BytesMessage createBytesMessage(Session session, Weather weather) throws JMSException {
+		BytesMessage message = session.createBytesMessage();
+		message.writeBytes(WeatherCodec.encode(weather));
+		message.setStringProperty(WeatherCodec.CONTENT_TYPE_PROPERTY, WeatherCodec.BINARY_CONTENT_TYPE);
+		message.setIntProperty(WeatherCodec.SCHEMA_VERSION_PROPERTY, WeatherCodec.SCHEMA_VERSION);
+		return message;
+	}
+
 	private void logWeatherEvent(String jsonEvent) {
-		logger.info("Published weather event to topic: {}", TOPIC_NAME);
 		logger.debug("Weather event content: {}", jsonEvent);
 	}
 
@@ -160,9 +231,13 @@ public class ActiveMQWeatherPublisher implements WeatherPublisher {
 
 	private void closeConnection() {
 		try {
+			started = false;
+			PublisherChannel channel;
+			while ((channel = idleChannels.poll()) != null) {
+				closeResources(channel.producer(), channel.session());
+			}
 			if (connection != null) {
 				connection.close();
-				started = false;
 				logger.info("Weather publisher closed");
 			}
 		} catch (JMSException e) {
@@ -174,4 +249,7 @@ public class ActiveMQWeatherPublisher implements WeatherPublisher {
 		logger.error("Failed to close weather publisher: {}", e.getMessage(), e);
 		throw new RuntimeException("Failed to close weather publisher", e);
 	}
+
+	private record PublisherChannel(Session session, MessageProducer producer) {
+	}
 }
\ No newline at end of file
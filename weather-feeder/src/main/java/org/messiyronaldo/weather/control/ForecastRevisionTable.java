@@ -0,0 +1,193 @@
+package org.messiyronaldo.weather.control;
+
+import org.messiyronaldo.weather.model.Location;
+import org.messiyronaldo.weather.model.Weather;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+class ForecastRevisionTable {
+	private static final Logger logger = LoggerFactory.getLogger(ForecastRevisionTable.class);
+	private static final String TABLE_NAME = "weather_forecast_revisions";
+	private static final String[] FIELD_COLUMNS = {
+			"location_name", "temperature", "humidity", "weather_id", "weather_main", "weather_description",
+			"cloudiness", "wind_speed", "rain_volume", "snow_volume", "part_of_day", "ss"
+	};
+	private static final int LOCATION_NAME = 1;
+	private static final int TEMPERATURE = 1 << 1;
+	private static final int HUMIDITY = 1 << 2;
+	private static final int WEATHER_ID = 1 << 3;
+	private static final int WEATHER_MAIN = 1 << 4;
+	private static final int WEATHER_DESCRIPTION = 1 << 5;
+	private static final int CLOUDINESS = 1 << 6;
+	private static final int WIND_SPEED = 1 << 7;
+	private static final int RAIN_VOLUME = 1 << 8;
+	private static final int SNOW_VOLUME = 1 << 9;
+	private static final int PART_OF_DAY = 1 << 10;
+	private static final int SOURCE = 1 << 11;
+	private static final int ALL_FIELDS = (1 << FIELD_COLUMNS.length) - 1;
+
+	void createTable(Connection connection) throws SQLException {
+		boolean exists = tableExists(connection);
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (" +
+					"latitude REAL NOT NULL, " +
+					"longitude REAL NOT NULL, " +
+					"prediction_timestamp INTEGER NOT NULL, " +
+					"issued_at INTEGER NOT NULL, " +
+					"changed_fields INTEGER NOT NULL, " +
+					"location_name TEXT, " +
+					"temperature REAL, " +
+					"humidity INTEGER, " +
+					"weather_id INTEGER, " +
+					"weather_main TEXT, " +
+					"weather_description TEXT, " +
+					"cloudiness INTEGER, " +
+					"wind_speed REAL, " +
+					"rain_volume REAL, " +
+					"snow_volume REAL, " +
+					"part_of_day TEXT, " +
+					"ss TEXT, " +
+					"PRIMARY KEY (latitude, longitude, prediction_timestamp, issued_at)" +
+					") WITHOUT ROWID");
+
+			if (!exists) {
+				int seeded = statement.executeUpdate("INSERT INTO " + TABLE_NAME + " " +
+						"SELECT latitude, longitude, prediction_timestamp, ts, " + ALL_FIELDS + ", " +
+						String.join(", ", FIELD_COLUMNS) + " FROM weather_forecasts");
+				logger.info("Forecast revision table created, seeded with {} current forecasts", seeded);
+			}
+		}
+	}
+
+	private boolean tableExists(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(
+				"SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+			statement.setString(1, TABLE_NAME);
+			try (ResultSet results = statement.executeQuery()) {
+				return results.next();
+			}
+		}
+	}
+
+	String createInsertSql() {
+		return "INSERT OR REPLACE INTO " + TABLE_NAME + " " +
+				"(latitude, longitude, prediction_timestamp, issued_at, changed_fields, " +
+				String.join(", ", FIELD_COLUMNS) + ") " +
+				"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	}
+
+	boolean addRevision(PreparedStatement statement, Weather latestRevision, Weather current) throws SQLException {
+		int changedFields = latestRevision == null ? ALL_FIELDS : changedFields(latestRevision, current);
+		if (changedFields == 0) {
+			return false;
+		}
+		Location location = current.getLocation();
+
+		statement.setDouble(1, location.getLatitude());
+		statement.setDouble(2, location.getLongitude());
+		statement.setLong(3, current.getPredictionTimestamp().getEpochSecond());
+		statement.setLong(4, current.getTs().getEpochSecond());
+		statement.setInt(5, changedFields);
+		setField(statement, 6, changedFields, LOCATION_NAME, location.getName());
+		setField(statement, 7, changedFields, TEMPERATURE, current.getTemperature());
+		setField(statement, 8, changedFields, HUMIDITY, current.getHumidity());
+		setField(statement, 9, changedFields, WEATHER_ID, current.getWeatherID());
+		setField(statement, 10, changedFields, WEATHER_MAIN, current.getWeatherMain());
+		setField(statement, 11, changedFields, WEATHER_DESCRIPTION, current.getWeatherDescription());
+		setField(statement, 12, changedFields, CLOUDINESS, current.getCloudiness());
+		setField(statement, 13, changedFields, WIND_SPEED, current.getWindSpeed());
+		setField(statement, 14, changedFields, RAIN_VOLUME, current.getRainVolume());
+		setField(statement, 15, changedFields, SNOW_VOLUME, current.getSnowVolume());
+		setField(statement, 16, changedFields, PART_OF_DAY, current.getPartOfDay());
+		setField(statement, 17, changedFields, SOURCE, current.getSs());
+
+		statement.addBatch();
+		return true;
+	}
+
+	private void setField(PreparedStatement statement, int index, int changedFields, int field, Object value)
+			throws SQLException {
+		statement.setObject(index, (changedFields & field) != 0 ? value : null);
+	}
+
+	private int changedFields(Weather previous, Weather current) {
+		int changed = 0;
+		if (!previous.getLocation().getName().equals(current.getLocation().getName())) changed |= LOCATION_NAME;
+		if (previous.getTemperature() != current.getTemperature()) changed |= TEMPERATURE;
+		if (previous.getHumidity() != current.getHumidity()) changed |= HUMIDITY;
+		if (previous.getWeatherID() != current.getWeatherID()) changed |= WEATHER_ID;
+		if (!previous.getWeatherMain().equals(current.getWeatherMain())) changed |= WEATHER_MAIN;
+		if (!previous.getWeatherDescription().equals(current.getWeatherDescription())) changed |= WEATHER_DESCRIPTION;
+		if (previous.getCloudiness() != current.getCloudiness()) changed |= CLOUDINESS;
+		if (previous.getWindSpeed() != current.getWindSpeed()) changed |= WIND_SPEED;
+		if (previous.getRainVolume() != current.getRainVolume()) changed |= RAIN_VOLUME;
+		if (previous.getSnowVolume() != current.getSnowVolume()) changed |= SNOW_VOLUME;
+		if (!previous.getPartOfDay().equals(current.getPartOfDay())) changed |= PART_OF_DAY;
+		if (!previous.getSs().equals(current.getSs())) changed |= SOURCE;
+		return changed;
+	}
+
+	String createLatestSql() {
+		return "SELECT * FROM " + TABLE_NAME + " " +
+				"WHERE latitude = ? AND longitude = ? AND prediction_timestamp BETWEEN ? AND ? " +
+				"ORDER BY prediction_timestamp, issued_at";
+	}
+
+	String createAsOfSql() {
+		return "SELECT * FROM " + TABLE_NAME + " " +
+				"WHERE latitude = ? AND longitude = ? AND issued_at <= ? " +
+				"ORDER BY prediction_timestamp, issued_at";
+	}
+
+	List<Weather> foldRevisions(ResultSet results, double latitude, double longitude) throws SQLException {
+		List<Weather> forecasts = new ArrayList<>();
+		Weather current = null;
+
+		while (results.next()) {
+			long predictionTime = results.getLong("prediction_timestamp");
+			int changedFields = results.getInt("changed_fields");
+
+			if (current != null && current.getPredictionTimestamp().getEpochSecond() != predictionTime) {
+				forecasts.add(current);
+				current = null;
+			}
+			if (current == null && changedFields != ALL_FIELDS) {
+				logger.warn("Skipping revision without base forecast for {},{} at {}", latitude, longitude, predictionTime);
+				continue;
+			}
+			current = applyRevision(current, results, changedFields, latitude, longitude);
+		}
+		if (current != null) {
+			forecasts.add(current);
+		}
+
+		return forecasts;
+	}
+
+	private Weather applyRevision(Weather base, ResultSet results, int changedFields,
+								  double latitude, double longitude) throws SQLException {
+		return new Weather(
+				Instant.ofEpochSecond(results.getLong("issued_at")),
+				new Location((changedFields & LOCATION_NAME) != 0
+						? results.getString("location_name") : base.getLocation().getName(), latitude, longitude),
+				Instant.ofEpochSecond(results.getLong("prediction_timestamp")),
+				(changedFields & TEMPERATURE) != 0 ? results.getDouble("temperature") : base.getTemperature(),
+				(changedFields & HUMIDITY) != 0 ? results.getInt("humidity") : base.getHumidity(),
+				(changedFields & WEATHER_ID) != 0 ? results.getInt("weather_id") : base.getWeatherID(),
+				(changedFields & WEATHER_MAIN) != 0 ? results.getString("weather_main") : base.getWeatherMain(),
+				(changedFields & WEATHER_DESCRIPTION) != 0 ? results.getString("weather_description") : base.getWeatherDescription(),
+				(changedFields & CLOUDINESS) != 0 ? results.getInt("cloudiness") : base.getCloudiness(),
+				(changedFields & WIND_SPEED) != 0 ? results.getDouble("wind_speed") : base.getWindSpeed(),
+				(changedFields & RAIN_VOLUME) != 0 ? results.getDouble("rain_volume") : base.getRainVolume(),
+				(changedFields & SNOW_VOLUME) != 0 ? results.getDouble("snow_volume") : base.getSnowVolume(),
+				(changedFields & PART_OF_DAY) != 0 ? results.getString("part_of_day") : base.getPartOfDay(),
+				(changedFields & SOURCE) != 0 ? results.getString("ss") : base.getSs()
+		);
+	}
+}
@@ -1,23 +1,23 @@
 package org.messiyronaldo.weather.control;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
 import org.messiyronaldo.weather.model.Location;
 import org.messiyronaldo.weather.model.Weather;
+import org.messiyronaldo.weather.utils.SharedHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Function;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 public class OpenWeatherProvider implements WeatherProvider {
 	private static final Logger logger = LoggerFactory.getLogger(OpenWeatherProvider.class);
@@ -32,44 +32,69 @@ public class OpenWeatherProvider implements WeatherProvider {
 
 	public OpenWeatherProvider(String apiKey, OkHttpClient httpClient) {
 		this.apiKey = apiKey;
-		this.httpClient = httpClient != null ? httpClient : createConfiguredHttpClient();
+		this.httpClient = httpClient != null ? httpClient : SharedHttpClient.get();
 		this.weatherParser = new JsonWeatherParser();
 		logger.info("OpenWeather provider initialized");
 	}
 
-	private OkHttpClient createConfiguredHttpClient() {
-		return new OkHttpClient.Builder()
-				.connectTimeout(10, TimeUnit.SECONDS)
-				.readTimeout(30, TimeUnit.SECONDS)
-				.build();
-	}
-
 	@Override
 	public List<Weather> getWeatherForecasts(Location location) throws IOException {
 		String apiUrl = buildWeatherApiUrlForLocation(location);
 		logger.debug("Fetching weather data for location: {} ({}, {})",
 			location.getName(), location.getLatitude(), location.getLongitude());
 
-		String jsonResponse = fetchWeatherDataFromApi(apiUrl);
-		List<Weather> forecasts = weatherParser.parseWeatherData(jsonResponse, location);
+		List<Weather> forecasts = fetchWeatherDataFromApi(apiUrl, location);
 		logger.info("Retrieved {} weather forecasts for location: {}", forecasts.size(), location.getName());
 		return forecasts;
 	}
 
+	@Override
+	public CompletableFuture<List<Weather>> getWeatherForecastsAsync(Location location) {
+		String apiUrl = buildWeatherApiUrlForLocation(location);
+		logger.debug("Fetching weather data asynchronously for location: {} ({}, {})",
+			location.getName(), location.getLatitude(), location.getLongitude());
+
+		CompletableFuture<List<Weather>> result = new CompletableFuture<>();
+		Call call = httpClient.newCall(new Request.Builder().url(apiUrl).build());
+
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(Call call, IOException e) {
+				result.completeExceptionally(e);
+			}
+
+			@Override
+			public void onResponse(Call call, Response response) {
+				try (response) {
+					validateResponse(response);
+					List<Weather> forecasts = weatherParser.parseWeatherData(extractResponseBody(response), location);
+					logger.info("Retrieved {} weather forecasts for location: {}", forecasts.size(), location.getName());
+					result.complete(forecasts);
+				} catch (IOException | RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			}
+		});
+		result.whenComplete((forecasts, error) -> {
+			if (result.isCancelled()) call.cancel();
+		});
+		return result;
+	}
+
 	private String buildWeatherApiUrlForLocation(Location location) {
 		return String.format("%s?lat=%f&lon=%f&units=metric&appid=%s",
 				OPENWEATHER_HOURLY_API_ENDPOINT, location.getLatitude(), location.getLongitude(), apiKey);
 	}
 
-	private String fetchWeatherDataFromApi(String apiUrl) throws IOException {
+	private List<Weather> fetchWeatherDataFromApi(String apiUrl, Location location) throws IOException {
 		Request request = new Request.Builder().url(apiUrl).build();
-		return executeHttpRequestAndGetResponseBody(request);
+		return executeHttpRequestAndParseResponse(request, location);
 	}
 
-	private String executeHttpRequestAndGetResponseBody(Request request) throws IOException {
+	private List<Weather> executeHttpRequestAndParseResponse(Request request, Location location) throws IOException {
 		try (Response response = httpClient.newCall(request).execute()) {
 			validateResponse(response);
-			return extractResponseBody(response);
+			return weatherParser.parseWeatherData(extractResponseBody(response), location);
 		}
 	}
 
@@ -80,147 +105,192 @@ public class OpenWeatherProvider implements WeatherProvider {
 		}
 	}
 
-	private String extractResponseBody(Response response) throws IOException {
+	private Reader extractResponseBody(Response response) throws IOException {
 		if (response.body() == null) {
 			logger.error("API response body is null");
 			throw new IOException("API response body is null");
 		}
-		return response.body().string();
+		return response.body().charStream();
 	}
 
 	static class JsonWeatherParser {
-		private final Gson jsonParser = new Gson();
-
-		public List<Weather> parseWeatherData(String jsonData, Location location) {
-			JsonObject rootObject = jsonParser.fromJson(jsonData, JsonObject.class);
+		public List<Weather> parseWeatherData(Reader source, Location location) throws IOException {
 			List<Weather> forecastList = new ArrayList<>();
-			extractForecasts(rootObject, location, forecastList);
+			Instant retrievalTime = Instant.now();
+
+			try (JsonReader reader = new JsonReader(source)) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					if (reader.nextName().equals("list")) {
+						extractForecasts(reader, location, retrievalTime, forecastList);
+					} else {
+						reader.skipValue();
+					}
+				}
+				reader.endObject();
+			}
 			return forecastList;
 		}
 
-		private void extractForecasts(JsonObject rootObject, Location location, List<Weather> results) {
-			Instant retrievalTime = Instant.now();
-			JsonArray forecastEntries = rootObject.getAsJsonArray("list");
-
-			for (JsonElement forecastElement : forecastEntries) {
-				JsonObject forecastEntry = forecastElement.getAsJsonObject();
-				Weather forecast = convertToWeather(forecastEntry, location, retrievalTime);
-				results.add(forecast);
+		private void extractForecasts(JsonReader reader, Location location, Instant retrievalTime,
+									  List<Weather> results) throws IOException {
+			reader.beginArray();
+			while (reader.hasNext()) {
+				Weather weather = convertToWeather(reader, location, retrievalTime);
+				if (weather != null) {
+					results.add(weather);
+				}
 			}
+			reader.endArray();
 		}
 
-		private Weather convertToWeather(JsonObject forecastJson, Location location, Instant retrievalTime) {
+		private Weather convertToWeather(JsonReader reader, Location location, Instant retrievalTime)
+				throws IOException {
+			ForecastFields fields = new ForecastFields();
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "dt" -> {
+						fields.timestampSeconds = reader.nextLong();
+						fields.hasTimestamp = true;
+					}
+					case "main" -> extractMainData(reader, fields);
+					case "weather" -> extractPrimaryWeather(reader, fields);
+					case "clouds" -> fields.cloudiness = (int) extractNumber(reader, "all", fields.cloudiness);
+					case "wind" -> fields.windSpeed = extractNumber(reader, "speed", fields.windSpeed);
+					case "rain" -> fields.rainVolume = extractPrecipitation(reader);
+					case "snow" -> fields.snowVolume = extractPrecipitation(reader);
+					case "sys" -> fields.partOfDay = extractDayPeriod(reader, fields.partOfDay);
+					default -> reader.skipValue();
+				}
+			}
+			reader.endObject();
+
+			if (!fields.hasTimestamp || !fields.hasTemperature || !fields.hasHumidity) {
+				logger.warn("Rejecting forecast for {} without dt, main.temp or main.humidity (dt={})",
+						location.getName(), fields.hasTimestamp ? fields.timestampSeconds : "missing");
+				return null;
+			}
+
 			return new Weather(
 					retrievalTime,
 					location,
-					extractTimestamp(forecastJson),
-					extractTemperature(forecastJson),
-					extractHumidity(forecastJson),
-					extractWeatherId(forecastJson),
-					extractWeatherMain(forecastJson),
-					extractWeatherDescription(forecastJson),
-					extractCloudiness(forecastJson),
-					extractWindSpeed(forecastJson),
-					extractRainVolume(forecastJson),
-					extractSnowVolume(forecastJson),
-					extractDayPeriod(forecastJson),
+					Instant.ofEpochSecond(fields.timestampSeconds),
+					fields.temperature,
+					fields.humidity,
+					fields.weatherId,
+					fields.weatherMain,
+					fields.weatherDescription,
+					fields.cloudiness,
+					fields.windSpeed,
+					fields.rainVolume,
+					fields.snowVolume,
+					fields.partOfDay,
 					"OpenWeatherApi"
 			);
 		}
 
-		private Instant extractTimestamp(JsonObject forecastJson) {
-			long timestampSeconds = forecastJson.get("dt").getAsLong();
-			return Instant.ofEpochSecond(timestampSeconds);
-		}
-
-		private double extractTemperature(JsonObject forecastJson) {
-			JsonObject mainData = forecastJson.getAsJsonObject("main");
-			return mainData.get("temp").getAsDouble();
-		}
-
-		private int extractHumidity(JsonObject forecastJson) {
-			JsonObject mainData = forecastJson.getAsJsonObject("main");
-			return mainData.get("humidity").getAsInt();
-		}
-
-		private JsonObject extractPrimaryWeather(JsonObject forecastJson) {
-			JsonArray weatherConditions = forecastJson.getAsJsonArray("weather");
-			return weatherConditions.get(0).getAsJsonObject();
-		}
-
-		private int extractWeatherId(JsonObject forecastJson) {
-			JsonObject weather = extractPrimaryWeather(forecastJson);
-			return weather.get("id").getAsInt();
-		}
-
-		private String extractWeatherMain(JsonObject forecastJson) {
-			JsonObject weather = extractPrimaryWeather(forecastJson);
-			return weather.get("main").getAsString();
-		}
-
-		private String extractWeatherDescription(JsonObject forecastJson) {
-			JsonObject weather = extractPrimaryWeather(forecastJson);
-			return weather.get("description").getAsString();
-		}
-
-		private int extractCloudiness(JsonObject forecastJson) {
-			return extractNestedValue(forecastJson, "clouds", "all", JsonElement::getAsInt, 0);
-		}
-
-		private double extractWindSpeed(JsonObject forecastJson) {
-			return extractNestedValue(forecastJson, "wind", "speed", JsonElement::getAsDouble, 0.0);
-		}
-
-		private double extractRainVolume(JsonObject forecastJson) {
-			return extractPrecipitation(forecastJson, "rain");
-		}
-
-		private double extractSnowVolume(JsonObject forecastJson) {
-			return extractPrecipitation(forecastJson, "snow");
-		}
-
-		private String extractDayPeriod(JsonObject forecastJson) {
-			return extractNestedValue(forecastJson, "sys", "pod", JsonElement::getAsString, "d");
-		}
-
-		private double extractPrecipitation(JsonObject forecastJson, String type) {
-			if (!forecastJson.has(type)) {
-				return 0.0;
+		private void extractMainData(JsonReader reader, ForecastFields fields) throws IOException {
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "temp" -> {
+						fields.temperature = reader.nextDouble();
+						fields.hasTemperature = true;
+					}
+					case "humidity" -> {
+						fields.humidity = reader.nextInt();
+						fields.hasHumidity = true;
+					}
+					default -> reader.skipValue();
+				}
 			}
-
-			JsonObject precipData = forecastJson.getAsJsonObject(type);
-			return getPrecipitationAmount(precipData);
+			reader.endObject();
 		}
 
-		private double getPrecipitationAmount(JsonObject precipData) {
-			if (precipData.has("1h")) {
-				return precipData.get("1h").getAsDouble();
+		private void extractPrimaryWeather(JsonReader reader, ForecastFields fields) throws IOException {
+			reader.beginArray();
+			if (reader.hasNext()) {
+				reader.beginObject();
+				while (reader.hasNext()) {
+					switch (reader.nextName()) {
+						case "id" -> fields.weatherId = reader.nextInt();
+						case "main" -> fields.weatherMain = reader.nextString();
+						case "description" -> fields.weatherDescription = reader.nextString();
+						default -> reader.skipValue();
+					}
+				}
+				reader.endObject();
 			}
+			while (reader.hasNext()) {
+				reader.skipValue();
+			}
+			reader.endArray();
+		}
 
-			if (precipData.has("3h")) {
-				return precipData.get("3h").getAsDouble();
+		private double extractPrecipitation(JsonReader reader) throws IOException {
+			double oneHour = -1;
+			double threeHours = -1;
+
+			reader.beginObject();
+			while (reader.hasNext()) {
+				switch (reader.nextName()) {
+					case "1h" -> oneHour = reader.nextDouble();
+					case "3h" -> threeHours = reader.nextDouble();
+					default -> reader.skipValue();
+				}
 			}
+			reader.endObject();
 
+			if (oneHour >= 0) return oneHour;
+			if (threeHours >= 0) return threeHours;
 			return 0.0;
 		}
 
-		private <T> T extractNestedValue(JsonObject parent, String objectName, String fieldName,
-										 Function<JsonElement, T> converter, T defaultValue) {
-			if (!parent.has(objectName)) {
-				return defaultValue;
+		private String extractDayPeriod(JsonReader reader, String defaultValue) throws IOException {
+			String period = defaultValue;
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals("pod")) {
+					period = reader.nextString();
+				} else {
+					reader.skipValue();
+				}
 			}
-
-			JsonObject nestedObject = parent.getAsJsonObject(objectName);
-			return extractFieldValue(nestedObject, fieldName, converter, defaultValue);
+			reader.endObject();
+			return period;
 		}
 
-		private <T> T extractFieldValue(JsonObject jsonObject, String fieldName,
-										Function<JsonElement, T> converter, T defaultValue) {
-			if (!jsonObject.has(fieldName)) {
-				return defaultValue;
+		private double extractNumber(JsonReader reader, String fieldName, double defaultValue) throws IOException {
+			double value = defaultValue;
+			reader.beginObject();
+			while (reader.hasNext()) {
+				if (reader.nextName().equals(fieldName)) {
+					value = reader.nextDouble();
+				} else {
+					reader.skipValue();
+				}
 			}
-
-			return converter.apply(jsonObject.get(fieldName));
+			reader.endObject();
+			return value;
 		}
 	}
-}
\ No newline at end of file
+
+	private static class ForecastFields {
+		long timestampSeconds;
+		double temperature;
+		int humidity;
+		boolean hasTimestamp;
+		boolean hasTemperature;
+		boolean hasHumidity;
+		int weatherId;
+		String weatherMain = "";
+		String weatherDescription = "";
+		int cloudiness = 0;
+		double windSpeed = 0.0;
+		double rainVolume = 0.0;
+		double snowVolume = 0.0;
+		String partOfDay = "d";
+	}
+}
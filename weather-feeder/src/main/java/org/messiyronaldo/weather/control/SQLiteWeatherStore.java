@@ -2,6 +2,8 @@ package org.messiyronaldo.weather.control;
 
 import org.messiyronaldo.weather.model.Location;
 import org.messiyronaldo.weather.model.Weather;
+import org.messiyronaldo.weather.utils.SQLiteConnectionPool;
+import org.messiyronaldo.weather.utils.SQLiteConnectionPool.PooledConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -11,17 +13,23 @@ import java.util.*;
 
 public class SQLiteWeatherStore implements WeatherStore {
 	private static final Logger logger = LoggerFactory.getLogger(SQLiteWeatherStore.class);
-	private final String databaseFilePath;
+	private final SQLiteConnectionPool connectionPool;
+	private final ForecastRevisionTable revisionTable;
 
 	public SQLiteWeatherStore(String databaseFilePath) {
-		this.databaseFilePath = databaseFilePath;
+		this(databaseFilePath, false);
+	}
+
+	public SQLiteWeatherStore(String databaseFilePath, boolean recordRevisions) {
+		this.connectionPool = new SQLiteConnectionPool(databaseFilePath);
+		this.revisionTable = recordRevisions ? new ForecastRevisionTable() : null;
 		initializeDatabase();
 		logger.info("SQLite weather store initialized with database: {}", databaseFilePath);
 	}
 
 	private void initializeDatabase() {
-		try (Connection connection = openConnection()) {
-			createTables(connection);
+		try (PooledConnection connection = connectionPool.acquire()) {
+			createTables(connection.connection());
 			logger.debug("Database tables initialized successfully");
 		} catch (SQLException e) {
 			logger.error("Failed to initialize database: {}", e.getMessage(), e);
@@ -31,15 +39,21 @@ public class SQLiteWeatherStore implements WeatherStore {
 
 	private void createTables(Connection connection) throws SQLException {
 		try (Statement statement = connection.createStatement()) {
-			statement.execute(createWeatherTableSql());
+			statement.execute(createWeatherTableSql("weather_forecasts"));
+		}
+		if (hasTextTimestamps(connection)) {
+			migrateToEpochSeconds(connection);
+		}
+		if (revisionTable != null) {
+			revisionTable.createTable(connection);
 		}
 	}
 
-	private String createWeatherTableSql() {
-		return "CREATE TABLE IF NOT EXISTS weather_forecasts (" +
+	private String createWeatherTableSql(String tableName) {
+		return "CREATE TABLE IF NOT EXISTS " + tableName + " (" +
 				"id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-				"ts TEXT NOT NULL, " +
-				"prediction_timestamp TEXT NOT NULL, " +
+				"ts INTEGER NOT NULL, " +
+				"prediction_timestamp INTEGER NOT NULL, " +
 				"location_name TEXT NOT NULL, " +
 				"latitude REAL NOT NULL, " +
 				"longitude REAL NOT NULL, " +
@@ -58,14 +72,44 @@ public class SQLiteWeatherStore implements WeatherStore {
 				")";
 	}
 
-	private Connection openConnection() throws SQLException {
-		try {
-			Class.forName("org.sqlite.JDBC");
-			return DriverManager.getConnection("jdbc:sqlite:" + databaseFilePath);
-		} catch (ClassNotFoundException e) {
-			logger.error("SQLite driver not found: {}", e.getMessage(), e);
-			throw new SQLException("SQLite driver not found", e);
+	private boolean hasTextTimestamps(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet columns = statement.executeQuery("PRAGMA table_info(weather_forecasts)")) {
+			while (columns.next()) {
+				if (columns.getString("name").equals("prediction_timestamp")) {
+					return columns.getString("type").equalsIgnoreCase("TEXT");
+				}
+			}
 		}
+		return false;
+	}
+
+	private void migrateToEpochSeconds(Connection connection) throws SQLException {
+		connection.setAutoCommit(false);
+
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS weather_forecasts_migrated");
+			statement.execute(createWeatherTableSql("weather_forecasts_migrated"));
+			int migrated = statement.executeUpdate("INSERT INTO weather_forecasts_migrated " +
+					"SELECT id, unixepoch(ts), unixepoch(prediction_timestamp), location_name, latitude, longitude, " +
+					"temperature, humidity, weather_id, weather_main, weather_description, " +
+					"cloudiness, wind_speed, rain_volume, snow_volume, part_of_day, ss " +
+					"FROM weather_forecasts");
+			statement.execute("DROP TABLE weather_forecasts");
+			statement.execute("ALTER TABLE weather_forecasts_migrated RENAME TO weather_forecasts");
+
+			connection.commit();
+			logger.info("Migrated {} weather forecasts to epoch-second timestamps", migrated);
+		} catch (SQLException e) {
+			rollbackTransaction(connection);
+			throw e;
+		} finally {
+			connection.setAutoCommit(true);
+		}
+	}
+
+	public void close() {
+		connectionPool.close();
 	}
 
 	@Override
@@ -75,7 +119,7 @@ public class SQLiteWeatherStore implements WeatherStore {
 			return;
 		}
 
-		try (Connection connection = openConnection()) {
+		try (PooledConnection connection = connectionPool.acquire()) {
 			executeTransaction(connection, forecasts);
 		} catch (SQLException e) {
 			logger.error("Failed to save weather forecasts: {}", e.getMessage(), e);
@@ -86,20 +130,22 @@ public class SQLiteWeatherStore implements WeatherStore {
 		return forecasts == null || forecasts.isEmpty();
 	}
 
-	private void executeTransaction(Connection connection, List<Weather> forecasts) throws SQLException {
-		connection.setAutoCommit(false);
+	private void executeTransaction(PooledConnection connection, List<Weather> forecasts) throws SQLException {
+		connection.connection().setAutoCommit(false);
 
 		try {
 			Map<String, Weather> existingForecasts = findExistingForecasts(connection, forecasts);
-			int[] counts = processForecasts(connection, forecasts, existingForecasts);
+			Map<String, Weather> latestRevisions = revisionTable != null
+					? findLatestRevisions(connection, forecasts) : Map.of();
+			int[] counts = processForecasts(connection, forecasts, existingForecasts, latestRevisions);
 
-			connection.commit();
+			connection.connection().commit();
 			logOperationSummary(counts[0], counts[1], counts[2]);
 		} catch (SQLException e) {
-			rollbackTransaction(connection);
+			rollbackTransaction(connection.connection());
 			throw e;
 		} finally {
-			connection.setAutoCommit(true);
+			connection.connection().setAutoCommit(true);
 		}
 	}
 
@@ -112,16 +158,16 @@ public class SQLiteWeatherStore implements WeatherStore {
 		}
 	}
 
-	private int[] processForecasts(Connection connection, List<Weather> forecasts,
-								   Map<String, Weather> existingForecasts) throws SQLException {
-		String insertSql = createInsertSql();
-		String updateSql = createUpdateSql();
-
-		try (PreparedStatement insertStatement = connection.prepareStatement(insertSql);
-			 PreparedStatement updateStatement = connection.prepareStatement(updateSql)) {
+	private int[] processForecasts(PooledConnection connection, List<Weather> forecasts,
+								   Map<String, Weather> existingForecasts, Map<String, Weather> latestRevisions)
+			throws SQLException {
+		PreparedStatement insertStatement = connection.prepare(createInsertSql());
+		PreparedStatement updateStatement = connection.prepare(createUpdateSql());
+		PreparedStatement revisionStatement = revisionTable != null
+				? connection.prepare(revisionTable.createInsertSql()) : null;
 
-			return processForecastBatch(insertStatement, updateStatement, forecasts, existingForecasts);
-		}
+		return processForecastBatch(insertStatement, updateStatement, revisionStatement, forecasts,
+				existingForecasts, latestRevisions);
 	}
 
 	private String createInsertSql() {
@@ -142,11 +188,13 @@ public class SQLiteWeatherStore implements WeatherStore {
 	}
 
 	private int[] processForecastBatch(PreparedStatement insertStatement, PreparedStatement updateStatement,
-									   List<Weather> forecasts, Map<String, Weather> existingForecasts)
+									   PreparedStatement revisionStatement, List<Weather> forecasts,
+									   Map<String, Weather> existingForecasts, Map<String, Weather> latestRevisions)
 			throws SQLException {
 		int insertCount = 0;
 		int updateCount = 0;
 		int unchangedCount = 0;
+		int revisionCount = 0;
 
 		for (Weather forecast : forecasts) {
 			String key = createForecastKey(forecast);
@@ -164,10 +212,20 @@ public class SQLiteWeatherStore implements WeatherStore {
 				addToInsertBatch(insertStatement, forecast);
 				insertCount++;
 			}
+
+			// Deltas are taken against the latest stored revision, which can lag weather_forecasts
+			// when the store previously ran without recording revisions
+			if (revisionStatement != null
+					&& revisionTable.addRevision(revisionStatement, latestRevisions.get(key), forecast)) {
+				revisionCount++;
+			}
 		}
 
 		executeNonEmptyBatch(insertStatement, insertCount);
 		executeNonEmptyBatch(updateStatement, updateCount);
+		if (revisionStatement != null) {
+			executeNonEmptyBatch(revisionStatement, revisionCount);
+		}
 
 		return new int[]{insertCount, updateCount, unchangedCount};
 	}
@@ -182,14 +240,14 @@ public class SQLiteWeatherStore implements WeatherStore {
 		Location location = forecast.getLocation();
 		return location.getLatitude() + "|" +
 				location.getLongitude() + "|" +
-				forecast.getPredictionTimestamp().toString();
+				forecast.getPredictionTimestamp().getEpochSecond();
 	}
 
 	private void addToInsertBatch(PreparedStatement statement, Weather forecast) throws SQLException {
 		Location location = forecast.getLocation();
 
-		statement.setString(1, forecast.getTs().toString());
-		statement.setString(2, forecast.getPredictionTimestamp().toString());
+		statement.setLong(1, forecast.getTs().getEpochSecond());
+		statement.setLong(2, forecast.getPredictionTimestamp().getEpochSecond());
 		statement.setString(3, location.getName());
 		statement.setDouble(4, location.getLatitude());
 		statement.setDouble(5, location.getLongitude());
@@ -211,7 +269,7 @@ public class SQLiteWeatherStore implements WeatherStore {
 	private void addToUpdateBatch(PreparedStatement statement, Weather forecast) throws SQLException {
 		Location location = forecast.getLocation();
 
-		statement.setString(1, forecast.getTs().toString());
+		statement.setLong(1, forecast.getTs().getEpochSecond());
 		statement.setDouble(2, forecast.getTemperature());
 		statement.setInt(3, forecast.getHumidity());
 		statement.setInt(4, forecast.getWeatherID());
@@ -225,7 +283,7 @@ public class SQLiteWeatherStore implements WeatherStore {
 		statement.setString(12, forecast.getSs());
 		statement.setDouble(13, location.getLatitude());
 		statement.setDouble(14, location.getLongitude());
-		statement.setString(15, forecast.getPredictionTimestamp().toString());
+		statement.setLong(15, forecast.getPredictionTimestamp().getEpochSecond());
 
 		statement.addBatch();
 	}
@@ -244,71 +302,69 @@ public class SQLiteWeatherStore implements WeatherStore {
 				|| !existing.getPartOfDay().equals(newForecast.getPartOfDay());
 	}
 
-	private Map<String, Weather> findExistingForecasts(Connection connection, List<Weather> forecasts)
+	private Map<String, Weather> findExistingForecasts(PooledConnection connection, List<Weather> forecasts)
 			throws SQLException {
-		Set<LocationCoordinates> uniqueLocations = extractUniqueLocations(forecasts);
-		String sql = buildExistingForecastQuery(uniqueLocations);
-		List<Object> parameters = createLocationParameters(uniqueLocations);
-
-		return queryExistingForecasts(connection, sql, parameters);
-	}
-
-	private Set<LocationCoordinates> extractUniqueLocations(List<Weather> forecasts) {
-		Set<LocationCoordinates> uniqueLocations = new HashSet<>();
+		Map<LocationCoordinates, PredictionWindow> windows = extractPredictionWindows(forecasts);
+		Map<String, Weather> existingForecasts = new HashMap<>();
 
-		for (Weather forecast : forecasts) {
-			Location location = forecast.getLocation();
-			uniqueLocations.add(new LocationCoordinates(location.getLatitude(), location.getLongitude()));
+		for (Map.Entry<LocationCoordinates, PredictionWindow> window : windows.entrySet()) {
+			queryExistingForecasts(connection, window.getKey(), window.getValue(), existingForecasts);
 		}
 
-		return uniqueLocations;
+		return existingForecasts;
 	}
 
-	private String buildExistingForecastQuery(Set<LocationCoordinates> uniqueLocations) {
-		StringBuilder conditions = new StringBuilder();
-
-		for (int i = 0; i < uniqueLocations.size(); i++) {
-			if (i > 0) conditions.append(" OR ");
-			conditions.append("(latitude = ? AND longitude = ?)");
-		}
-
-		return "SELECT * FROM weather_forecasts WHERE " + conditions;
-	}
+	private Map<String, Weather> findLatestRevisions(PooledConnection connection, List<Weather> forecasts)
+			throws SQLException {
+		Map<String, Weather> latestRevisions = new HashMap<>();
+		PreparedStatement statement = connection.prepare(revisionTable.createLatestSql());
 
-	private List<Object> createLocationParameters(Set<LocationCoordinates> uniqueLocations) {
-		List<Object> parameters = new ArrayList<>();
+		for (Map.Entry<LocationCoordinates, PredictionWindow> window : extractPredictionWindows(forecasts).entrySet()) {
+			LocationCoordinates location = window.getKey();
+			statement.setDouble(1, location.latitude);
+			statement.setDouble(2, location.longitude);
+			statement.setLong(3, window.getValue().from);
+			statement.setLong(4, window.getValue().to);
 
-		for (LocationCoordinates location : uniqueLocations) {
-			parameters.add(location.latitude);
-			parameters.add(location.longitude);
+			try (ResultSet results = statement.executeQuery()) {
+				for (Weather revision : revisionTable.foldRevisions(results, location.latitude, location.longitude)) {
+					latestRevisions.put(createForecastKey(revision), revision);
+				}
+			}
 		}
 
-		return parameters;
+		return latestRevisions;
 	}
 
-	private Map<String, Weather> queryExistingForecasts(Connection connection, String sql,
-														List<Object> parameters) throws SQLException {
-		Map<String, Weather> forecasts = new HashMap<>();
-
-		try (PreparedStatement statement = connection.prepareStatement(sql)) {
-			setStatementParameters(statement, parameters);
+	private Map<LocationCoordinates, PredictionWindow> extractPredictionWindows(List<Weather> forecasts) {
+		Map<LocationCoordinates, PredictionWindow> windows = new HashMap<>();
 
-			try (ResultSet results = statement.executeQuery()) {
-				while (results.next()) {
-					Weather forecast = createWeatherFromResultSet(results);
-					String key = createForecastKey(forecast);
-					forecasts.put(key, forecast);
-				}
-			}
+		for (Weather forecast : forecasts) {
+			Location location = forecast.getLocation();
+			long predictionTime = forecast.getPredictionTimestamp().getEpochSecond();
+			windows.merge(new LocationCoordinates(location.getLatitude(), location.getLongitude()),
+					new PredictionWindow(predictionTime, predictionTime), PredictionWindow::union);
 		}
 
-		return forecasts;
+		return windows;
 	}
 
-	private void setStatementParameters(PreparedStatement statement, List<Object> parameters)
-			throws SQLException {
-		for (int i = 0; i < parameters.size(); i++) {
-			statement.setObject(i + 1, parameters.get(i));
+	private void queryExistingForecasts(PooledConnection connection, LocationCoordinates location,
+										PredictionWindow window, Map<String, Weather> forecasts) throws SQLException {
+		String sql = "SELECT * FROM weather_forecasts " +
+				"WHERE latitude = ? AND longitude = ? AND prediction_timestamp BETWEEN ? AND ?";
+
+		PreparedStatement statement = connection.prepare(sql);
+		statement.setDouble(1, location.latitude);
+		statement.setDouble(2, location.longitude);
+		statement.setLong(3, window.from);
+		statement.setLong(4, window.to);
+
+		try (ResultSet results = statement.executeQuery()) {
+			while (results.next()) {
+				Weather forecast = createWeatherFromResultSet(results);
+				forecasts.put(createForecastKey(forecast), forecast);
+			}
 		}
 	}
 
@@ -316,7 +372,7 @@ public class SQLiteWeatherStore implements WeatherStore {
 	public List<Weather> getWeatherForecasts(double latitude, double longitude) {
 		List<Weather> forecasts = new ArrayList<>();
 
-		try (Connection connection = openConnection()) {
+		try (PooledConnection connection = connectionPool.acquire()) {
 			forecasts = queryForecastsByLocation(connection, latitude, longitude);
 		} catch (SQLException e) {
 			logger.error("Error retrieving weather forecasts: {}", e.getMessage(), e);
@@ -325,20 +381,42 @@ public class SQLiteWeatherStore implements WeatherStore {
 		return forecasts;
 	}
 
-	private List<Weather> queryForecastsByLocation(Connection connection, double latitude, double longitude)
+	private List<Weather> queryForecastsByLocation(PooledConnection connection, double latitude, double longitude)
 			throws SQLException {
 		List<Weather> forecasts = new ArrayList<>();
 		String sql = "SELECT * FROM weather_forecasts WHERE latitude = ? AND longitude = ? ORDER BY prediction_timestamp";
 
-		try (PreparedStatement statement = connection.prepareStatement(sql)) {
+		PreparedStatement statement = connection.prepare(sql);
+		statement.setDouble(1, latitude);
+		statement.setDouble(2, longitude);
+
+		try (ResultSet results = statement.executeQuery()) {
+			while (results.next()) {
+				forecasts.add(createWeatherFromResultSet(results));
+			}
+		}
+
+		return forecasts;
+	}
+
+	public List<Weather> getWeatherForecastsAsOf(double latitude, double longitude, Instant issuedAsOf) {
+		if (revisionTable == null) {
+			throw new IllegalStateException("Forecast revisions are not recorded by this store");
+		}
+
+		List<Weather> forecasts = new ArrayList<>();
+
+		try (PooledConnection connection = connectionPool.acquire()) {
+			PreparedStatement statement = connection.prepare(revisionTable.createAsOfSql());
 			statement.setDouble(1, latitude);
 			statement.setDouble(2, longitude);
+			statement.setLong(3, issuedAsOf.getEpochSecond());
 
 			try (ResultSet results = statement.executeQuery()) {
-				while (results.next()) {
-					forecasts.add(createWeatherFromResultSet(results));
-				}
+				forecasts = revisionTable.foldRevisions(results, latitude, longitude);
 			}
+		} catch (SQLException e) {
+			logger.error("Error retrieving forecast revisions: {}", e.getMessage(), e);
 		}
 
 		return forecasts;
@@ -348,9 +426,9 @@ public class SQLiteWeatherStore implements WeatherStore {
 		Location location = createLocationFromResultSet(results);
 
 		return new Weather(
-				Instant.parse(results.getString("ts")),
+				Instant.ofEpochSecond(results.getLong("ts")),
 				location,
-				Instant.parse(results.getString("prediction_timestamp")),
+				Instant.ofEpochSecond(results.getLong("prediction_timestamp")),
 				results.getDouble("temperature"),
 				results.getInt("humidity"),
 				results.getInt("weather_id"),
@@ -388,4 +466,10 @@ public class SQLiteWeatherStore implements WeatherStore {
 					Double.compare(that.longitude, longitude) == 0;
 		}
 	}
+
+	private record PredictionWindow(long from, long to) {
+		PredictionWindow union(PredictionWindow other) {
+			return new PredictionWindow(Math.min(from, other.from), Math.max(to, other.to));
+		}
+	}
 }
\ No newline at end of file
@@ -6,8 +6,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 public class WeatherController {
 	private static final Logger logger = LoggerFactory.getLogger(WeatherController.class);
@@ -15,70 +15,53 @@ public class WeatherController {
 	private final WeatherProvider provider;
 	private final WeatherStore store;
 	private final WeatherPublisher publisher;
-	private final Timer timer;
-	private final long updateIntervalMinutes;
 
 	public WeatherController(Location location,
 						   WeatherProvider provider,
 						   WeatherStore store,
-						   WeatherPublisher publisher,
-						   long updateIntervalMinutes) {
+						   WeatherPublisher publisher) {
 		this.location = location;
 		this.provider = provider;
 		this.store = store;
 		this.publisher = publisher;
-		this.updateIntervalMinutes = updateIntervalMinutes;
-		this.timer = new Timer("WeatherUpdate-" + location.getName(), true);
-		logger.info("Weather controller initialized for location: {}", location.getName());
+		logger.debug("Weather controller initialized for location: {}", location.getName());
 	}
 
-	public void start() {
-		long intervalMillis = updateIntervalMinutes * 60 * 1000;
-		timer.scheduleAtFixedRate(new TimerTask() {
-			@Override
-			public void run() {
-				updateWeatherData();
-			}
-		}, 0, intervalMillis);
-	}
-
-	private void updateWeatherData() {
+	public void updateWeatherData() {
 		try {
 			List<Weather> forecasts = provider.getWeatherForecasts(location);
 			logger.info("Retrieved {} weather forecasts for location: {}",
 				forecasts.size(), location.getName());
 
-			if (store != null) {
-				store.saveWeatherForecasts(forecasts);
-				logger.info("Weather forecasts saved to store for location: {}", location.getName());
-			}
-
-			if (publisher != null) {
-				for (Weather forecast : forecasts) {
-					publisher.publish(forecast);
-				}
-				logger.info("Weather forecasts published for location: {}", location.getName());
-			}
+			storeAndPublish(forecasts);
 		} catch (Exception e) {
-			logger.error("Error updating weather data for location {}: {}",
-				location.getName(), e.getMessage(), e);
+			logUpdateError(e);
 		}
 	}
 
-	public void shutdown() {
-		if (timer != null) {
-			timer.cancel();
-			logger.info("Weather controller stopped for location: {}", location.getName());
+	public CompletableFuture<Void> updateWeatherDataAsync() {
+		return provider.getWeatherForecastsAsync(location)
+				.thenAccept(this::storeAndPublish)
+				.exceptionally(e -> {
+					logUpdateError(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+					return null;
+				});
+	}
+
+	private void storeAndPublish(List<Weather> forecasts) {
+		if (store != null) {
+			store.saveWeatherForecasts(forecasts);
+			logger.info("Weather forecasts saved to store for location: {}", location.getName());
 		}
 
 		if (publisher != null) {
-			try {
-				publisher.close();
-				logger.info("Weather publisher closed successfully for location: {}", location.getName());
-			} catch (Exception e) {
-				logger.error("Error closing weather publisher for location {}: {}",
-					location.getName(), e.getMessage(), e);
-			}
+			publisher.publishAll(forecasts);
+			logger.info("Weather forecasts published for location: {}", location.getName());
 		}
 	}
-}
\ No newline at end of file
+
+	private void logUpdateError(Throwable e) {
+		logger.error("Error updating weather data for location {}: {}",
+			location.getName(), e.getMessage(), e);
+	}
+}
@@ -3,7 +3,9 @@ package org.messiyronaldo.weather.control;
 import org.messiyronaldo.weather.model.Location;
 import org.messiyronaldo.weather.model.Weather;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface WeatherProvider {
 	List<Weather> getWeatherForecasts(Location location) throws Exception;
+	CompletableFuture<List<Weather>> getWeatherForecastsAsync(Location location);
 }
\ No newline at end of file
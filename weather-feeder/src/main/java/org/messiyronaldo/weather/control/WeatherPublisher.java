@@ -2,8 +2,11 @@ package org.messiyronaldo.weather.control;
 
 import org.messiyronaldo.weather.model.Weather;
 
+import java.util.List;
+
 public interface WeatherPublisher {
 	void start();
 	void publish(Weather event);
+	void publishAll(List<Weather> events);
 	void close();
 }
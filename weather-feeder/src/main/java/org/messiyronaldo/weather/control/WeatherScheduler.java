@@ -0,0 +1,79 @@
+package org.messiyronaldo.weather.control;
+
+import org.messiyronaldo.weather.utils.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class WeatherScheduler {
+	private static final Logger logger = LoggerFactory.getLogger(WeatherScheduler.class);
+	private final List<WeatherController> controllers;
+	private final long updateIntervalMinutes;
+	private final Semaphore concurrencyLimit;
+	private final RateLimiter rateLimiter;
+	private final ScheduledExecutorService scheduler;
+
+	public WeatherScheduler(List<WeatherController> controllers,
+							long updateIntervalMinutes,
+							int maxConcurrentRequests,
+							RateLimiter rateLimiter) {
+		this.controllers = List.copyOf(controllers);
+		this.updateIntervalMinutes = updateIntervalMinutes;
+		this.concurrencyLimit = new Semaphore(maxConcurrentRequests);
+		this.rateLimiter = rateLimiter;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "WeatherScheduler"));
+		logger.info("Weather scheduler initialized for {} locations (max {} concurrent requests)",
+			this.controllers.size(), maxConcurrentRequests);
+	}
+
+	public void start() {
+		scheduler.scheduleAtFixedRate(this::refreshAllLocations, 0, updateIntervalMinutes, TimeUnit.MINUTES);
+	}
+
+	private void refreshAllLocations() {
+		long startNanos = System.nanoTime();
+		List<CompletableFuture<Void>> refreshes = new ArrayList<>(controllers.size());
+
+		try {
+			for (WeatherController controller : controllers) {
+				refreshes.add(refreshLocation(controller));
+			}
+			CompletableFuture.allOf(refreshes.toArray(CompletableFuture[]::new)).get();
+			logger.info("Weather refresh for {} locations completed in {} ms",
+				controllers.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			logger.warn("Weather refresh interrupted");
+		} catch (ExecutionException e) {
+			logger.error("Weather refresh failed: {}", e.getCause().getMessage(), e.getCause());
+		} catch (RuntimeException e) {
+			// An exception escaping this task would make scheduleAtFixedRate cancel every later refresh
+			logger.error("Weather refresh failed: {}", e.getMessage(), e);
+		}
+	}
+
+	private CompletableFuture<Void> refreshLocation(WeatherController controller) throws InterruptedException {
+		rateLimiter.acquire();
+		concurrencyLimit.acquire();
+		try {
+			return controller.updateWeatherDataAsync()
+					.whenComplete((ignored, error) -> concurrencyLimit.release());
+		} catch (RuntimeException e) {
+			concurrencyLimit.release();
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	public void shutdown() {
+		scheduler.shutdownNow();
+		logger.info("Weather scheduler stopped");
+	}
+}
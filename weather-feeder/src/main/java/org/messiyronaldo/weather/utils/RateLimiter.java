@@ -0,0 +1,38 @@
+package org.messiyronaldo.weather.utils;
+
+import java.util.concurrent.TimeUnit;
+
+public class RateLimiter {
+	private final double permitsPerNano;
+	private final double capacity;
+	private double availablePermits;
+	private long lastRefillNanos;
+
+	public RateLimiter(int permitsPerMinute, int burstCapacity) {
+		this.permitsPerNano = permitsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+		this.capacity = burstCapacity;
+		this.availablePermits = burstCapacity;
+		this.lastRefillNanos = System.nanoTime();
+	}
+
+	public void acquire() throws InterruptedException {
+		while (true) {
+			long waitNanos;
+			synchronized (this) {
+				refill();
+				if (availablePermits >= 1) {
+					availablePermits -= 1;
+					return;
+				}
+				waitNanos = (long) Math.ceil((1 - availablePermits) / permitsPerNano);
+			}
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	private void refill() {
+		long now = System.nanoTime();
+		availablePermits = Math.min(capacity, availablePermits + (now - lastRefillNanos) * permitsPerNano);
+		lastRefillNanos = now;
+	}
+}
@@ -0,0 +1,95 @@
+package org.messiyronaldo.weather.utils;
+
+import org.messiyronaldo.weather.model.Location;
+import org.messiyronaldo.weather.model.Weather;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+public final class WeatherCodec {
+	public static final String CONTENT_TYPE_PROPERTY = "contentType";
+	public static final String SCHEMA_VERSION_PROPERTY = "schemaVersion";
+	public static final String BINARY_CONTENT_TYPE = "application/vnd.pv-event+binary";
+	public static final byte EVENT_TYPE = 2;
+	public static final byte SCHEMA_VERSION = 1;
+
+	private WeatherCodec() {
+	}
+
+	// Layout shared with the event-store-builder and business-unit2 decoders
+	public static byte[] encode(Weather weather) {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream(160);
+		try (DataOutputStream out = new DataOutputStream(buffer)) {
+			out.writeByte(EVENT_TYPE);
+			out.writeByte(SCHEMA_VERSION);
+			writeInstant(out, weather.getTs());
+			Location location = weather.getLocation();
+			out.writeBoolean(location != null);
+			if (location != null) {
+				writeString(out, location.getName());
+				out.writeDouble(location.getLatitude());
+				out.writeDouble(location.getLongitude());
+			}
+			writeInstant(out, weather.getPredictionTimestamp());
+			out.writeDouble(weather.getTemperature());
+			out.writeInt(weather.getHumidity());
+			out.writeInt(weather.getWeatherID());
+			writeString(out, weather.getWeatherMain());
+			writeString(out, weather.getWeatherDescription());
+			out.writeInt(weather.getCloudiness());
+			out.writeDouble(weather.getWindSpeed());
+			out.writeDouble(weather.getRainVolume());
+			out.writeDouble(weather.getSnowVolume());
+			writeString(out, weather.getPartOfDay());
+			writeString(out, weather.getSs());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to encode weather event", e);
+		}
+		return buffer.toByteArray();
+	}
+
+	public static Weather decode(byte[] data) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+			byte eventType = in.readByte();
+			byte schemaVersion = in.readByte();
+			if (eventType != EVENT_TYPE || schemaVersion != SCHEMA_VERSION) {
+				throw new IllegalArgumentException("Unsupported weather event encoding: type " + eventType + ", version " + schemaVersion);
+			}
+			Instant ts = readInstant(in);
+			Location location = in.readBoolean() ? new Location(readString(in), in.readDouble(), in.readDouble()) : null;
+			return new Weather(ts, location, readInstant(in), in.readDouble(), in.readInt(), in.readInt(),
+					readString(in), readString(in), in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(),
+					readString(in), readString(in));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decode weather event", e);
+		}
+	}
+
+	private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+		out.writeBoolean(instant != null);
+		if (instant != null) {
+			out.writeLong(instant.getEpochSecond());
+			out.writeInt(instant.getNano());
+		}
+	}
+
+	private static Instant readInstant(DataInputStream in) throws IOException {
+		return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
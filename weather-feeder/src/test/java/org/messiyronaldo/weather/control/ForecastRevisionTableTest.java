@@ -0,0 +1,105 @@
+package org.messiyronaldo.weather.control;
+
+import org.junit.jupiter.api.*;
+import org.messiyronaldo.weather.model.Location;
+import org.messiyronaldo.weather.model.Weather;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ForecastRevisionTableTest {
+    private static final Location MADRID = new Location("Madrid", 40.4, -3.7);
+    private static final Instant PREDICTION = Instant.parse("2025-05-20T12:00:00Z");
+    private static final Instant FIRST_ISSUE = Instant.parse("2025-05-18T00:00:00Z");
+    private static final Instant SECOND_ISSUE = Instant.parse("2025-05-18T06:00:00Z");
+    private static final Instant THIRD_ISSUE = Instant.parse("2025-05-18T12:00:00Z");
+
+    private Path folder;
+    private String databaseFile;
+
+    @BeforeEach
+    void setup() throws IOException {
+        folder = Files.createTempDirectory("revision-test");
+        databaseFile = folder.resolve("weather.db").toString();
+    }
+
+    @AfterEach
+    void cleanup() throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static Weather forecast(Instant issuedAt, double temperature, int humidity, String description) {
+        return new Weather(issuedAt, MADRID, PREDICTION, temperature, humidity, 800, "Clear", description,
+                0, 2.0, 0.0, 0.0, "d", "OpenWeatherMap");
+    }
+
+    private static List<Weather> asOf(SQLiteWeatherStore store, Instant issuedAt) {
+        return store.getWeatherForecastsAsOf(MADRID.getLatitude(), MADRID.getLongitude(), issuedAt);
+    }
+
+    private static void assertForecast(Weather expected, Weather actual) {
+        assertEquals(expected.getTs(), actual.getTs());
+        assertEquals(expected.getPredictionTimestamp(), actual.getPredictionTimestamp());
+        assertEquals(expected.getTemperature(), actual.getTemperature());
+        assertEquals(expected.getHumidity(), actual.getHumidity());
+        assertEquals(expected.getWeatherDescription(), actual.getWeatherDescription());
+        assertEquals(expected.getSs(), actual.getSs());
+    }
+
+    @Test
+    void foldReturnsTheForecastAsIssuedAtEachInstant() {
+        Weather first = forecast(FIRST_ISSUE, 21.0, 40, "clear sky");
+        Weather second = forecast(SECOND_ISSUE, 23.5, 40, "clear sky");
+        Weather third = forecast(THIRD_ISSUE, 23.5, 55, "few clouds");
+
+        SQLiteWeatherStore store = new SQLiteWeatherStore(databaseFile, true);
+        try {
+            store.saveWeatherForecasts(List.of(first));
+            store.saveWeatherForecasts(List.of(second));
+            store.saveWeatherForecasts(List.of(third));
+
+            assertTrue(asOf(store, FIRST_ISSUE.minusSeconds(1)).isEmpty());
+            assertForecast(first, asOf(store, FIRST_ISSUE).get(0));
+            assertForecast(second, asOf(store, SECOND_ISSUE.plusSeconds(60)).get(0));
+            assertForecast(third, asOf(store, Instant.MAX).get(0));
+            assertEquals(1, asOf(store, Instant.MAX).size());
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    void deltasFollowTheLatestRevisionAfterRunningWithoutRevisions() {
+        Weather first = forecast(FIRST_ISSUE, 21.0, 40, "clear sky");
+        Weather unrecorded = forecast(SECOND_ISSUE, 21.0, 70, "broken clouds");
+        Weather third = forecast(THIRD_ISSUE, 25.0, 70, "broken clouds");
+
+        SQLiteWeatherStore recording = new SQLiteWeatherStore(databaseFile, true);
+        recording.saveWeatherForecasts(List.of(first));
+        recording.close();
+
+        SQLiteWeatherStore plain = new SQLiteWeatherStore(databaseFile);
+        plain.saveWeatherForecasts(List.of(unrecorded));
+        plain.close();
+
+        SQLiteWeatherStore resumed = new SQLiteWeatherStore(databaseFile, true);
+        try {
+            resumed.saveWeatherForecasts(List.of(third));
+
+            assertForecast(first, asOf(resumed, SECOND_ISSUE).get(0));
+            assertForecast(third, asOf(resumed, THIRD_ISSUE).get(0));
+        } finally {
+            resumed.close();
+        }
+    }
+}